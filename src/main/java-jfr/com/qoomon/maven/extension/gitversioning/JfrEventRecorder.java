@@ -0,0 +1,203 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import jdk.jfr.*;
+
+import java.io.File;
+
+/**
+ * JDK Flight Recorder implementation of {@link VersioningEvents.Recorder}.
+ * <p>
+ * Compiled for JDK 11+ only and loaded by {@link VersioningEvents} if JFR is available.
+ */
+class JfrEventRecorder implements VersioningEvents.Recorder {
+
+    private static final String CATEGORY = "Maven Git Versioning";
+
+    @Override
+    public Object beginRepositoryOpen() {
+        RepositoryOpen event = new RepositoryOpen();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitRepositoryOpen(Object event, Object gav, Object gitDir) {
+        RepositoryOpen repositoryOpen = (RepositoryOpen) event;
+        if (repositoryOpen.shouldCommit()) {
+            repositoryOpen.gav = String.valueOf(gav);
+            repositoryOpen.gitDir = String.valueOf(gitDir);
+            repositoryOpen.commit();
+        }
+    }
+
+    @Override
+    public Object beginTagIndexBuild() {
+        TagIndexBuild event = new TagIndexBuild();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitTagIndexBuild(Object event, Object gitDir, int tagCount, int branchCount, boolean cacheHit) {
+        TagIndexBuild tagIndexBuild = (TagIndexBuild) event;
+        if (tagIndexBuild.shouldCommit()) {
+            tagIndexBuild.gitDir = String.valueOf(gitDir);
+            tagIndexBuild.tagCount = tagCount;
+            tagIndexBuild.branchCount = branchCount;
+            tagIndexBuild.cacheHit = cacheHit;
+            tagIndexBuild.commit();
+        }
+    }
+
+    @Override
+    public Object beginVersionDeduction() {
+        VersionDeduction event = new VersionDeduction();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitVersionDeduction(Object event, Object gav, Object gitDir, ProjectVersion projectVersion, int headTagCount) {
+        VersionDeduction versionDeduction = (VersionDeduction) event;
+        if (versionDeduction.shouldCommit()) {
+            versionDeduction.gav = String.valueOf(gav);
+            versionDeduction.gitDir = String.valueOf(gitDir);
+            versionDeduction.version = projectVersion.getVersion();
+            versionDeduction.branch = projectVersion.getBranch();
+            versionDeduction.tag = projectVersion.getTag();
+            versionDeduction.headTagCount = headTagCount;
+            versionDeduction.commit();
+        }
+    }
+
+    @Override
+    public Object beginParentPomParse() {
+        ParentPomParse event = new ParentPomParse();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitParentPomParse(Object event, Object gav, Object parentPomFile, boolean parentMatch) {
+        ParentPomParse parentPomParse = (ParentPomParse) event;
+        if (parentPomParse.shouldCommit()) {
+            parentPomParse.gav = String.valueOf(gav);
+            parentPomParse.parentPomFile = String.valueOf(parentPomFile);
+            parentPomParse.parentMatch = parentMatch;
+            parentPomParse.commit();
+        }
+    }
+
+    @Override
+    public Object beginPomWrite() {
+        PomWrite event = new PomWrite();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitPomWrite(Object event, Object gav, File pomFile) {
+        PomWrite pomWrite = (PomWrite) event;
+        if (pomWrite.shouldCommit()) {
+            pomWrite.gav = String.valueOf(gav);
+            pomWrite.pomFile = String.valueOf(pomFile);
+            pomWrite.size = pomFile.length();
+            pomWrite.commit();
+        }
+    }
+
+    @Name("com.qoomon.gitversioning.RepositoryOpen")
+    @Label("Repository Open")
+    @Category(CATEGORY)
+    @Description("Open git repository to deduce project version")
+    @StackTrace(false)
+    static class RepositoryOpen extends Event {
+
+        @Label("GAV")
+        String gav;
+
+        @Label("Git Directory")
+        String gitDir;
+    }
+
+    @Name("com.qoomon.gitversioning.TagIndexBuild")
+    @Label("Tag Index Build")
+    @Category(CATEGORY)
+    @Description("Build of ref tip index, containing tags and branches, once per repository, cache hits without duration")
+    @StackTrace(false)
+    static class TagIndexBuild extends Event {
+
+        @Label("Git Directory")
+        String gitDir;
+
+        @Label("Tag Count")
+        int tagCount;
+
+        @Label("Branch Count")
+        int branchCount;
+
+        @Label("Cache Hit")
+        boolean cacheHit;
+    }
+
+    @Name("com.qoomon.gitversioning.VersionDeduction")
+    @Label("Version Deduction")
+    @Category(CATEGORY)
+    @Description("Project version deduction from git situation")
+    @StackTrace(false)
+    static class VersionDeduction extends Event {
+
+        @Label("GAV")
+        String gav;
+
+        @Label("Git Directory")
+        String gitDir;
+
+        @Label("Version")
+        String version;
+
+        @Label("Branch")
+        String branch;
+
+        @Label("Tag")
+        String tag;
+
+        @Label("Head Tag Count")
+        int headTagCount;
+    }
+
+    @Name("com.qoomon.gitversioning.ParentPomParse")
+    @Label("Parent Pom Parse")
+    @Category(CATEGORY)
+    @Description("Parse of parent pom file to adjust parent version")
+    @StackTrace(false)
+    static class ParentPomParse extends Event {
+
+        @Label("GAV")
+        String gav;
+
+        @Label("Parent Pom File")
+        String parentPomFile;
+
+        @Label("Parent Match")
+        boolean parentMatch;
+    }
+
+    @Name("com.qoomon.gitversioning.PomWrite")
+    @Label("Pom Write")
+    @Category(CATEGORY)
+    @Description("Write of git_pom.xml from in memory project model")
+    @StackTrace(false)
+    static class PomWrite extends Event {
+
+        @Label("GAV")
+        String gav;
+
+        @Label("Pom File")
+        String pomFile;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+    }
+}
@@ -1,45 +1,299 @@
 package com.qoomon.maven.extension.gitversioning;
 
-import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
-import org.eclipse.jgit.lib.Constants;
-import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import com.qoomon.maven.BuildProperties;
+import com.qoomon.maven.GAV;
+import com.qoomon.maven.extension.gitversioning.config.VersioningConfiguration;
+import com.qoomon.maven.extension.gitversioning.config.VersioningConfigurationLoader;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+/**
+ * Command line entry point to compute project versions without booting maven.
+ * <p>
+ * Uses the same configuration and version deduction as {@link VersioningModelProcessor}.
+ * Pom files are read by a minimal StAX reader, so neither maven core nor plexus are loaded.
+ */
 public class App {
 
-    public static void main(String[] args) throws Exception {
-        Repository repository = new FileRepositoryBuilder()
-                .findGitDir(new File("/Users/bengt.brodersen/Workspace/git-sandbox"))
-                .build();
-
-        ObjectId head = repository.resolve(Constants.HEAD);
-        Optional<String> headTag = repository.getTags().values().stream()
-                .map(repository::peel)
-                .filter(ref -> {
-                    ObjectId objectId;
-                    if (ref.getPeeledObjectId() != null) {
-                        objectId = ref.getPeeledObjectId();
-                    } else {
-                        objectId = ref.getObjectId();
+    private static final String USAGE = "Usage: App [--all] [--branch <name>] [--tag <name>] [--debug] [<project directory>]\n"
+            + "  --all      print groupId:artifactId:version of project and all its modules\n"
+            + "  --branch   provide or overwrite branch name, default $MAVEN_PROJECT_BRANCH\n"
+            + "  --tag      provide or overwrite tag name, default $MAVEN_PROJECT_TAG\n"
+            + "  --debug    print debug messages and timing to stderr";
+
+    private static final String PROJECT_BRANCH_ENVIRONMENT_VARIABLE_NAME = "MAVEN_PROJECT_BRANCH";
+    private static final String PROJECT_TAG_ENVIRONMENT_VARIABLE_NAME = "MAVEN_PROJECT_TAG";
+
+    private static final int THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    public static void main(String[] args) {
+        long startTime = System.nanoTime();
+
+        boolean all = false;
+        boolean debug = false;
+        String branchOverride = System.getenv(PROJECT_BRANCH_ENVIRONMENT_VARIABLE_NAME);
+        String tagOverride = System.getenv(PROJECT_TAG_ENVIRONMENT_VARIABLE_NAME);
+        File projectDir = new File(".");
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--all":
+                    all = true;
+                    break;
+                case "--debug":
+                    debug = true;
+                    break;
+                case "--branch":
+                    branchOverride = requireValue(args, ++i);
+                    break;
+                case "--tag":
+                    tagOverride = requireValue(args, ++i);
+                    break;
+                case "--help":
+                    System.out.println(USAGE);
+                    return;
+                default:
+                    if (args[i].startsWith("-")) {
+                        exitWithUsage("Unknown option " + args[i]);
                     }
-                    return objectId.equals(head);
-                })
-                .map(ref -> ref.getName().replaceFirst("^refs/tags/", ""))
-                .sorted((tagLeft, tagRight) -> {
-                    DefaultArtifactVersion tagVersionLeft = new DefaultArtifactVersion(tagLeft);
-                    DefaultArtifactVersion tagVersionRight = new DefaultArtifactVersion(tagRight);
-                    return Math.negateExact(tagVersionLeft.compareTo(tagVersionRight));
-                })
-                .findFirst();
-
-        if (headTag.isPresent()) {
-            System.out.println(headTag.get());
+                    projectDir = new File(args[i]);
+            }
+        }
+
+        Consumer<String> debugLog = debug ? System.err::println : message -> {
+        };
+
+        try {
+            Map<GAV, String> versions = resolveVersions(projectDir, all,
+                    Optional.ofNullable(branchOverride), Optional.ofNullable(tagOverride), debugLog);
+            for (Map.Entry<GAV, String> versionEntry : versions.entrySet()) {
+                GAV gav = versionEntry.getKey();
+                System.out.println(all
+                        ? gav.getGroupId() + ":" + gav.getArtifactId() + ":" + versionEntry.getValue()
+                        : versionEntry.getValue());
+            }
+        } catch (Exception e) {
+            System.err.println("ERROR: " + e.getMessage());
+            if (debug) {
+                e.printStackTrace();
+            }
+            System.exit(1);
+        }
+
+        JGitStorage.windowCacheOccupancy().ifPresent(debugLog);
+        debugLog.accept("finished in " + (System.nanoTime() - startTime) / 1_000_000 + "ms");
+    }
+
+    /**
+     * Resolve effective project versions the same way as {@link VersioningModelProcessor},
+     * projects inheriting their version get the adjusted version of their parent project, unless versions are module scoped.
+     *
+     * @param projectDir     project directory
+     * @param all            resolve versions of project and all its modules
+     * @param branchOverride branch name to use instead of HEAD branch
+     * @param tagOverride    tag name to use instead of HEAD tags
+     * @param debugLog       debug message consumer
+     * @return effective version by original project coordinates, in module order
+     * @throws IOException if pom files or repository can not be read
+     */
+    static Map<GAV, String> resolveVersions(File projectDir, boolean all, Optional<String> branchOverride, Optional<String> tagOverride,
+                                            Consumer<String> debugLog) throws IOException {
+        projectDir = projectDir.getCanonicalFile();
+        File configFile = new File(findMultiModuleProjectDirectory(projectDir), ".mvn/" + BuildProperties.projectArtifactId() + ".xml");
+        debugLog.accept("config file " + configFile);
+        VersioningConfiguration configuration = VersioningConfigurationLoader.load(configFile);
+
+        ProjectVersionDeducer projectVersionDeducer = new ProjectVersionDeducer(configuration,
+                branchOverride, tagOverride, debugLog, new VersioningCounters());
+
+        File pomFile = new File(projectDir, "pom.xml");
+        Map<File, Pom> poms = new LinkedHashMap<>();
+        if (all) {
+            readAll(pomFile, poms);
+            projectVersionDeducer.prepare(poms.keySet(), THREADS);
         } else {
-            System.out.println("no tag");
+            poms.put(projectDir, Pom.read(pomFile));
+        }
+
+        Map<GAV, String> versions = new LinkedHashMap<>();
+        for (Map.Entry<File, Pom> pomEntry : poms.entrySet()) {
+            Pom pom = pomEntry.getValue();
+            GAV gav = pom.gav();
+            String version = projectVersionDeducer.deduceProjectVersion(gav, pomEntry.getKey()).getVersion();
+            if (pom.version == null && !projectVersionDeducer.isModuleScoped()) {
+                version = getParentVersion(pom, pomEntry.getKey(), projectVersionDeducer);
+            }
+            versions.put(gav, version);
+        }
+        return versions;
+    }
+
+    /**
+     * Parent version as adjusted by {@link VersioningModelProcessor}, only if parent pom file matches project parent.
+     */
+    private static String getParentVersion(Pom pom, File projectDir, ProjectVersionDeducer projectVersionDeducer) throws IOException {
+        File parentPomFile = new File(projectDir, pom.parentRelativePath != null ? pom.parentRelativePath : "../pom.xml");
+        if (!parentPomFile.isFile() || !parentPomFile.getName().endsWith(".xml")) {
+            return pom.parentVersion;
+        }
+
+        GAV parentGav = new GAV(pom.parentGroupId, pom.parentArtifactId, pom.parentVersion);
+        if (!Pom.read(parentPomFile).gav().equals(parentGav)) {
+            return pom.parentVersion;
+        }
+        return projectVersionDeducer.deduceProjectVersion(parentGav, parentPomFile.getParentFile()).getVersion();
+    }
+
+    /**
+     * Read pom files of project and all its modules
+     *
+     * @param poms project directory to pom, in module order
+     */
+    private static void readAll(File pomFile, Map<File, Pom> poms) throws IOException {
+        Pom pom = Pom.read(pomFile);
+        poms.put(pomFile.getParentFile(), pom);
+
+        for (String module : pom.modules) {
+            File modulePomFile = new File(pomFile.getParentFile(), module);
+            if (modulePomFile.isDirectory()) {
+                modulePomFile = new File(modulePomFile, "pom.xml");
+            }
+            readAll(modulePomFile, poms);
+        }
+    }
+
+    /**
+     * Same lookup as maven launcher, nearest directory containing a .mvn directory
+     */
+    private static File findMultiModuleProjectDirectory(File projectDir) {
+        for (File dir = projectDir; dir != null; dir = dir.getParentFile()) {
+            if (new File(dir, ".mvn").isDirectory()) {
+                return dir;
+            }
+        }
+        return projectDir;
+    }
+
+    private static String requireValue(String[] args, int index) {
+        if (index >= args.length) {
+            exitWithUsage("Missing value for option " + args[index - 1]);
+        }
+        return args[index];
+    }
+
+    private static void exitWithUsage(String message) {
+        System.err.println("ERROR: " + message);
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+    /**
+     * Minimal pom model, only coordinates, parent and modules are read.
+     */
+    private static class Pom {
+
+        String groupId;
+        String artifactId;
+        String version;
+        String parentGroupId;
+        String parentArtifactId;
+        String parentVersion;
+        String parentRelativePath;
+        final List<String> modules = new ArrayList<>();
+
+        GAV gav() {
+            return new GAV(
+                    groupId != null ? groupId : parentGroupId,
+                    artifactId,
+                    version != null ? version : parentVersion);
+        }
+
+        static Pom read(File pomFile) throws IOException {
+            XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+            xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+            Pom pom = new Pom();
+            try (InputStream inputStream = new FileInputStream(pomFile)) {
+                XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(inputStream);
+                try {
+                    reader.nextTag(); // project
+                    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                        switch (reader.getLocalName()) {
+                            case "groupId":
+                                pom.groupId = reader.getElementText().trim();
+                                break;
+                            case "artifactId":
+                                pom.artifactId = reader.getElementText().trim();
+                                break;
+                            case "version":
+                                pom.version = reader.getElementText().trim();
+                                break;
+                            case "parent":
+                                readParent(reader, pom);
+                                break;
+                            case "modules":
+                                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                                    pom.modules.add(reader.getElementText().trim());
+                                }
+                                break;
+                            default:
+                                skipElement(reader);
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (XMLStreamException e) {
+                throw new IOException(pomFile + ": " + e.getMessage(), e);
+            }
+            return pom;
+        }
+
+        private static void readParent(XMLStreamReader reader, Pom pom) throws XMLStreamException {
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "groupId":
+                        pom.parentGroupId = reader.getElementText().trim();
+                        break;
+                    case "artifactId":
+                        pom.parentArtifactId = reader.getElementText().trim();
+                        break;
+                    case "version":
+                        pom.parentVersion = reader.getElementText().trim();
+                        break;
+                    case "relativePath":
+                        pom.parentRelativePath = reader.getElementText().trim();
+                        break;
+                    default:
+                        skipElement(reader);
+                }
+            }
+        }
+
+        private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+            int depth = 1;
+            while (depth > 0) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
         }
     }
 }
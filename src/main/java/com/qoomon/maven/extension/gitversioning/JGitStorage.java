@@ -0,0 +1,73 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * JVM wide JGit pack storage settings.
+ * <p>
+ * JGit window cache is a static singleton shared by all repositories of the JVM, reconfiguring it drops all cached
+ * pack windows. Therefore settings are installed once per JVM only, e.g. for daemon or embedded maven builds.
+ */
+public class JGitStorage {
+
+    private static WindowCacheConfig installedConfig;
+
+    private JGitStorage() {
+    }
+
+    /**
+     * Install window cache config, if no config has been installed before.
+     *
+     * @param windowCacheConfig window cache config
+     * @param debugLog          debug message consumer
+     */
+    public static synchronized void install(WindowCacheConfig windowCacheConfig, Consumer<String> debugLog) {
+        if (installedConfig != null) {
+            if (installedConfig != windowCacheConfig) {
+                debugLog.accept("JGit storage settings already installed, keep " + describe(installedConfig));
+            }
+            return;
+        }
+        windowCacheConfig.install();
+        installedConfig = windowCacheConfig;
+        debugLog.accept("install JGit storage settings " + describe(windowCacheConfig));
+    }
+
+    /**
+     * Current window cache occupancy, i.e. open pack files and bytes of cached pack windows.
+     * It does not tell cache efficiency, JGit 4.9 does not count window cache hits and misses.
+     * Window cache internals are not part of JGit API, so occupancy is read reflectively.
+     *
+     * @return window cache occupancy, empty if not available
+     */
+    public static Optional<String> windowCacheOccupancy() {
+        try {
+            Class<?> windowCacheClass = Class.forName("org.eclipse.jgit.internal.storage.file.WindowCache");
+            Method getInstance = windowCacheClass.getDeclaredMethod("getInstance");
+            Method getOpenFiles = windowCacheClass.getDeclaredMethod("getOpenFiles");
+            Method getOpenBytes = windowCacheClass.getDeclaredMethod("getOpenBytes");
+            getInstance.setAccessible(true);
+            getOpenFiles.setAccessible(true);
+            getOpenBytes.setAccessible(true);
+
+            Object windowCache = getInstance.invoke(null);
+            return Optional.of("JGit window cache occupancy - open pack files: " + getOpenFiles.invoke(windowCache)
+                    + ", open bytes: " + getOpenBytes.invoke(windowCache));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static String describe(WindowCacheConfig windowCacheConfig) {
+        return "packedGitWindowSize=" + windowCacheConfig.getPackedGitWindowSize()
+                + " packedGitLimit=" + windowCacheConfig.getPackedGitLimit()
+                + " packedGitMMAP=" + windowCacheConfig.isPackedGitMMAP()
+                + " packedGitOpenFiles=" + windowCacheConfig.getPackedGitOpenFiles()
+                + " deltaBaseCacheLimit=" + windowCacheConfig.getDeltaBaseCacheLimit()
+                + " streamFileThreshold=" + windowCacheConfig.getStreamFileThreshold();
+    }
+}
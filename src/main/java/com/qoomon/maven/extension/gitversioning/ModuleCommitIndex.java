@@ -0,0 +1,109 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Index of the last commit that touched each module directory of a repository.
+ * <p>
+ * The index is built by a single first-parent history walk starting at HEAD, resolving all module paths at once
+ * instead of running one path filtered walk per module. The walk stops as soon as all module paths are resolved.
+ * Module paths are relative to the work tree, '/' separated, the repository root is represented by an empty path.
+ */
+public class ModuleCommitIndex {
+
+    private final Set<String> modulePaths;
+
+    private final Map<String, ObjectId> moduleCommits;
+
+    private ModuleCommitIndex(Set<String> modulePaths, Map<String, ObjectId> moduleCommits) {
+        this.modulePaths = modulePaths;
+        this.moduleCommits = moduleCommits;
+    }
+
+    /**
+     * @param modulePath module directory relative to the work tree
+     * @return true if the module directory has been part of the index build
+     */
+    public boolean isIndexed(String modulePath) {
+        return modulePaths.contains(modulePath);
+    }
+
+    /**
+     * @param modulePath module directory relative to the work tree
+     * @return last commit that touched the module directory, empty if the module is not part of HEAD or not indexed
+     */
+    public Optional<ObjectId> getCommit(String modulePath) {
+        return Optional.ofNullable(moduleCommits.get(modulePath));
+    }
+
+    /**
+     * Builds an index for given module paths, e.g. of all reactor projects.
+     *
+     * @param repository  repository
+     * @param head        HEAD commit
+     * @param modulePaths module directories relative to the work tree
+     * @return index
+     * @throws IOException if repository access fails
+     */
+    public static ModuleCommitIndex build(Repository repository, ObjectId head, Set<String> modulePaths) throws IOException {
+        Map<String, ObjectId> moduleCommits = new HashMap<>();
+        Set<String> indexedModulePaths = Collections.unmodifiableSet(new HashSet<>(modulePaths));
+        if (head == null || modulePaths.isEmpty()) {
+            return new ModuleCommitIndex(indexedModulePaths, moduleCommits);
+        }
+
+        Set<String> remainingModulePaths = new HashSet<>(modulePaths);
+        try (RevWalk revWalk = new RevWalk(repository);
+             TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.setRecursive(true);
+
+            RevCommit commit = revWalk.parseCommit(head);
+            while (commit != null && !remainingModulePaths.isEmpty()) {
+                RevCommit parent = commit.getParentCount() > 0 ? revWalk.parseCommit(commit.getParent(0)) : null;
+
+                treeWalk.reset();
+                treeWalk.setFilter(changedPathFilter(remainingModulePaths));
+                if (parent != null) {
+                    treeWalk.addTree(parent.getTree());
+                } else {
+                    treeWalk.addTree(new EmptyTreeIterator());
+                }
+                treeWalk.addTree(commit.getTree());
+
+                while (!remainingModulePaths.isEmpty() && treeWalk.next()) {
+                    // assign commit to all remaining module directories containing the changed file
+                    String directory = treeWalk.getPathString();
+                    do {
+                        int separatorIndex = directory.lastIndexOf('/');
+                        directory = separatorIndex >= 0 ? directory.substring(0, separatorIndex) : "";
+                        if (remainingModulePaths.remove(directory)) {
+                            moduleCommits.put(directory, commit.copy());
+                        }
+                    } while (!directory.isEmpty());
+                }
+
+                commit = parent;
+            }
+        }
+
+        return new ModuleCommitIndex(indexedModulePaths, moduleCommits);
+    }
+
+    private static TreeFilter changedPathFilter(Set<String> modulePaths) {
+        if (modulePaths.contains("")) {
+            return TreeFilter.ANY_DIFF;
+        }
+        return AndTreeFilter.create(PathFilterGroup.createFromStrings(modulePaths), TreeFilter.ANY_DIFF);
+    }
+}
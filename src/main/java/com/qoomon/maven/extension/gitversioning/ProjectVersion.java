@@ -0,0 +1,40 @@
+package com.qoomon.maven.extension.gitversioning;
+
+/**
+ * Project version deduced from git situation.
+ */
+public class ProjectVersion {
+
+    private final String value;
+    private final String commit;
+    private final String branch;
+    private final String tag;
+
+    ProjectVersion(String version, String commit, String branch, String tag) {
+        this.value = version;
+        this.commit = commit;
+        this.branch = branch;
+        this.tag = tag;
+    }
+
+    public String getVersion() {
+        return value;
+    }
+
+    public String getCommit() {
+        return commit;
+    }
+
+    public String getBranch() {
+        return branch;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -0,0 +1,547 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import com.qoomon.maven.GAV;
+import com.qoomon.maven.extension.gitversioning.config.VersioningConfiguration;
+import com.qoomon.maven.extension.gitversioning.config.model.VersionFormatDescription;
+import org.apache.commons.lang3.text.StrSubstitutor;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Deduces project versions from git situation according to {@link VersioningConfiguration}.
+ * <p>
+ * Does not depend on maven core, so it is shared by {@link VersioningModelProcessor} and {@link App}.
+ * <p>
+ * HEAD state of a repository is resolved once and served to all modules of that repository.
+ * Instances are thread safe, distinct repositories can be resolved concurrently, see {@link #prepare(Collection, int)}.
+ */
+public class ProjectVersionDeducer {
+
+    private static final String MODULE_COMMIT_PLACEHOLDER_PREFIX = "${module.commit";
+
+    private static final String DIRTY_PLACEHOLDER = "${dirty}";
+    private static final String DIRTY_VERSION_SUFFIX = "-dirty";
+
+    private static final String NO_COMMIT = "0000000000000000000000000000000000000000";
+
+    private final VersioningConfiguration configuration;
+
+    private final Optional<String> branchOverride;
+
+    private final Optional<String> tagOverride;
+
+    private final Consumer<String> debugLog;
+
+    private final VersioningCounters counters;
+
+    private final boolean moduleCommitRequired;
+
+    private final boolean dirtyRequired;
+
+    private final boolean moduleDirtyRequired;
+
+    private final Map<File, HeadState> headStateCache = new ConcurrentHashMap<>();
+
+    /**
+     * canonical project directories registered by {@link #prepare(Collection, int)}, seed of module commit index
+     */
+    private final Set<File> projectDirs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param configuration  versioning configuration
+     * @param branchOverride branch name to use instead of HEAD branch
+     * @param tagOverride    tag name to use instead of HEAD tags
+     * @param debugLog       debug message consumer, has to be thread safe
+     * @param counters       operation counters
+     */
+    public ProjectVersionDeducer(VersioningConfiguration configuration,
+                                 Optional<String> branchOverride, Optional<String> tagOverride,
+                                 Consumer<String> debugLog, VersioningCounters counters) {
+        this.configuration = configuration;
+        this.branchOverride = branchOverride;
+        this.tagOverride = tagOverride;
+        this.debugLog = debugLog;
+        this.counters = counters;
+
+        configuration.getWindowCacheConfig().ifPresent(windowCacheConfig -> JGitStorage.install(windowCacheConfig, debugLog));
+
+        this.moduleCommitRequired = Stream.concat(
+                configuration.getBranchVersionDescriptions().stream(),
+                configuration.getTagVersionDescriptions().stream())
+                .anyMatch(versionFormatDescription -> versionFormatDescription.versionFormat.contains(MODULE_COMMIT_PLACEHOLDER_PREFIX));
+        this.dirtyRequired = Stream.concat(
+                configuration.getBranchVersionDescriptions().stream(),
+                configuration.getTagVersionDescriptions().stream())
+                .anyMatch(versionFormatDescription -> versionFormatDescription.versionFormat.contains(DIRTY_PLACEHOLDER));
+        this.moduleDirtyRequired = dirtyRequired && configuration.getDirtyScope() == VersioningConfiguration.DirtyScope.MODULE;
+    }
+
+    /**
+     * @return true if versions may differ between modules of the same repository,
+     * e.g. by {@code ${module.commit}} or {@code ${dirty}} of module dirty scope
+     */
+    public boolean isModuleScoped() {
+        return moduleCommitRequired || moduleDirtyRequired;
+    }
+
+    /**
+     * Resolve HEAD state of all distinct repositories of given project directories up front,
+     * concurrently on a bounded worker pool, so total time approaches that of the slowest single repository.
+     * Subsequent {@link #deduceProjectVersion(GAV, File)} calls are served from the results.
+     * <p>
+     * Module scoped data, e.g. {@code ${module.commit}}, is resolved for given project directories only,
+     * directories of subsequent deductions that have not been registered are resolved on demand.
+     *
+     * @param projectDirs project directories, e.g. of all reactor projects
+     * @param parallelism max number of repositories resolved concurrently
+     * @throws IOException if repository access fails
+     */
+    public void prepare(Collection<File> projectDirs, int parallelism) throws IOException {
+
+        Map<File, FileRepositoryBuilder> repositoryBuilders = new LinkedHashMap<>();
+        for (File projectDir : projectDirs) {
+            this.projectDirs.add(projectDir.getCanonicalFile());
+        }
+
+        for (File projectDir : projectDirs) {
+            FileRepositoryBuilder repositoryBuilder = new FileRepositoryBuilder().findGitDir(projectDir.getCanonicalFile());
+            if (repositoryBuilder.getGitDir() != null && !headStateCache.containsKey(repositoryBuilder.getGitDir())) {
+                repositoryBuilders.putIfAbsent(repositoryBuilder.getGitDir(), repositoryBuilder);
+            }
+        }
+
+        long startTime = System.currentTimeMillis();
+        int threads = Math.max(1, Math.min(parallelism, repositoryBuilders.size()));
+        if (threads == 1) {
+            for (FileRepositoryBuilder repositoryBuilder : repositoryBuilders.values()) {
+                getHeadState(repositoryBuilder, repositoryBuilder.getGitDir(), null);
+            }
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(threads, new RepositoryThreadFactory());
+            try {
+                List<Future<HeadState>> futures = new ArrayList<>(repositoryBuilders.size());
+                for (FileRepositoryBuilder repositoryBuilder : repositoryBuilders.values()) {
+                    futures.add(executor.submit(() -> getHeadState(repositoryBuilder, repositoryBuilder.getGitDir(), null)));
+                }
+                for (Future<HeadState> future : futures) {
+                    await(future);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        debugLog.accept("resolve " + repositoryBuilders.size() + " repositories with " + threads + " threads in "
+                + (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    private static void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while resolving repositories", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * @param gav        project coordinates
+     * @param projectDir project directory
+     * @return deduced project version
+     * @throws IOException if repository access fails
+     */
+    public ProjectVersion deduceProjectVersion(GAV gav, File projectDir) throws IOException {
+
+        Object deductionEvent = VersioningEvents.beginVersionDeduction();
+
+        // canonical git directory, e.g. parent project dirs like 'module/..', to hit per repository caches
+        FileRepositoryBuilder repositoryBuilder = new FileRepositoryBuilder().findGitDir(projectDir.getCanonicalFile());
+        debugLog.accept(gav + " git directory " + repositoryBuilder.getGitDir());
+
+        HeadState headState = getHeadState(repositoryBuilder, gav, projectDir);
+
+        final String headCommit = headState.commit;
+        final String moduleCommit = moduleCommitRequired ? getModuleCommit(repositoryBuilder, headState, projectDir) : headCommit;
+        final boolean dirty = dirtyRequired && isDirty(repositoryBuilder, headState, projectDir);
+        final List<String> headTags = headState.tags;
+
+        Optional<ProjectVersion> projectVersion = Optional.empty();
+
+        if (!configuration.getTagVersionDescriptions().isEmpty()) {
+
+            Optional<String> versionTag = Optional.empty();
+            VersionFormatDescription tagVersionFormatDescription = null;
+            for (VersionFormatDescription versionFormatDescription : configuration.getTagVersionDescriptions()) {
+                versionTag = headTags.stream().sequential()
+                        .filter(tagName -> configuration.pattern(versionFormatDescription.pattern).matches(tagName))
+                        .sorted((tagLeft, tagRight) -> {
+                            DefaultArtifactVersion tagVersionLeft = new DefaultArtifactVersion(configuration.pattern(versionFormatDescription.prefix).removeFirst(tagLeft));
+                            DefaultArtifactVersion tagVersionRight = new DefaultArtifactVersion(configuration.pattern(versionFormatDescription.prefix).removeFirst(tagRight));
+                            return tagVersionLeft.compareTo(tagVersionRight) * -1; // -1 revert sorting, latest version first
+
+                        })
+                        .findFirst();
+                if (versionTag.isPresent()) {
+                    tagVersionFormatDescription = versionFormatDescription;
+                    break;
+                }
+            }
+
+            if (versionTag.isPresent()) {
+
+                Map<String, String> tagVersionDataMap = buildCommonVersionDataMap(headCommit, moduleCommit, dirty, gav);
+                tagVersionDataMap.put("tag", configuration.pattern(tagVersionFormatDescription.prefix).removeFirst(versionTag.get())
+                        .replace("/", "-"));
+
+                String tagVersion = StrSubstitutor.replace(tagVersionFormatDescription.versionFormat, tagVersionDataMap);
+
+                projectVersion = Optional.of(new ProjectVersion(tagVersion, headCommit, "", versionTag.get()));
+            }
+        }
+
+
+        if (!projectVersion.isPresent()) {
+            final String headBranch = headState.branch
+                    .orElseThrow(() -> new IllegalStateException(projectDir + ": No Branch Name provided in Detached HEAD state. See documentation."));
+
+            // find version format for branch
+            VersionFormatDescription branchVersionFormatDescription = configuration.getBranchVersionDescriptions().stream()
+                    .filter(versionFormatDescription -> configuration.pattern(versionFormatDescription.pattern).matches(headBranch))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException(projectDir + ": No version format for branch '" + headBranch + "' found."));
+
+            Map<String, String> branchVersionDataMap = buildCommonVersionDataMap(headCommit, moduleCommit, dirty, gav);
+            branchVersionDataMap.put("branch", configuration.pattern(branchVersionFormatDescription.prefix).removeFirst(headBranch)
+                    .replace("/", "-"));
+
+            String branchVersion = StrSubstitutor.replace(branchVersionFormatDescription.versionFormat, branchVersionDataMap);
+
+            projectVersion = Optional.of(new ProjectVersion(branchVersion, headCommit, headBranch, ""));
+        }
+
+        VersioningEvents.commitVersionDeduction(deductionEvent, gav, headState.gitDir, projectVersion.get(), headTags.size());
+
+        return projectVersion.get();
+    }
+
+    private static Map<String, String> buildCommonVersionDataMap(String commit, String moduleCommit, boolean dirty, GAV gav) {
+        Map<String, String> versionDataMap = new HashMap<>();
+        versionDataMap.put("commit", commit);
+        versionDataMap.put("commit.short", commit
+                .substring(0, 7));
+        versionDataMap.put("module.commit", moduleCommit);
+        versionDataMap.put("module.commit.short", moduleCommit
+                .substring(0, 7));
+        versionDataMap.put("dirty", dirty ? DIRTY_VERSION_SUFFIX : "");
+        versionDataMap.put("version", gav.getVersion());
+        versionDataMap.put("version.release", gav.getVersion()
+                .replaceFirst("-SNAPSHOT$", ""));
+        return versionDataMap;
+    }
+
+    /**
+     * Lookup HEAD state of repository, resolved once per repository.
+     * Concurrent first lookups of the same repository may resolve it twice, first result wins.
+     *
+     * @param requester  project coordinates or directory the repository is opened for, used for profiling events only
+     * @param projectDir project directory of deduction, null for {@link #prepare(Collection, int)}
+     */
+    private HeadState getHeadState(FileRepositoryBuilder repositoryBuilder, Object requester, File projectDir) throws IOException {
+        HeadState headState = repositoryBuilder.getGitDir() != null ? headStateCache.get(repositoryBuilder.getGitDir()) : null;
+        if (headState != null) {
+            // served from cache, recorded without duration to keep lookups visible
+            VersioningEvents.commitTagIndexBuild(VersioningEvents.beginTagIndexBuild(),
+                    headState.gitDir, headState.tagCount, headState.branchCount, true);
+            return headState;
+        }
+
+        headState = resolveHeadState(repositoryBuilder, requester, projectDir);
+        HeadState existingHeadState = headStateCache.putIfAbsent(headState.gitDir, headState);
+        if (existingHeadState != null) {
+            headState = existingHeadState;
+        }
+        return headState;
+    }
+
+    private HeadState resolveHeadState(FileRepositoryBuilder repositoryBuilder, Object requester, File projectDir) throws IOException {
+        Object repositoryOpenEvent = VersioningEvents.beginRepositoryOpen();
+        try (Repository repository = repositoryBuilder.build()) {
+            counters.incrementRepositoryOpens();
+            VersioningEvents.commitRepositoryOpen(repositoryOpenEvent, requester, repository.getDirectory());
+
+            HeadState headState = new HeadState();
+            headState.gitDir = repository.getDirectory();
+            headState.workTree = repository.getWorkTree();
+            headState.head = repository.resolve(Constants.HEAD);
+            headState.commit = headState.head != null ? headState.head.getName() : NO_COMMIT;
+
+            long startTime = System.currentTimeMillis();
+            Object tagIndexBuildEvent = VersioningEvents.beginTagIndexBuild();
+            RefTipIndex refTipIndex = RefTipIndex.build(repository);
+            VersioningEvents.commitTagIndexBuild(tagIndexBuildEvent, repository.getDirectory(),
+                    refTipIndex.getTagCount(), refTipIndex.getBranchCount(), false);
+            counters.addTagPeels(refTipIndex.getTagCount());
+            headState.tagCount = refTipIndex.getTagCount();
+            headState.branchCount = refTipIndex.getBranchCount();
+            debugLog.accept(repository.getDirectory() + " build ref tip index in " + (System.currentTimeMillis() - startTime) + "ms");
+
+            headState.branch = getHeadBranch(repository, headState.head, refTipIndex);
+            headState.tags = getHeadTags(headState.head, refTipIndex);
+
+            if (isModuleScoped()) {
+                headState.modulePaths = getModulePaths(headState.workTree, projectDir);
+            }
+
+            if (moduleCommitRequired && headState.head != null) {
+                startTime = System.currentTimeMillis();
+                headState.moduleCommitIndex = ModuleCommitIndex.build(repository, headState.head, headState.modulePaths);
+                debugLog.accept(repository.getDirectory() + " build module commit index of " + headState.modulePaths.size() + " modules in "
+                        + (System.currentTimeMillis() - startTime) + "ms");
+            }
+
+            if (dirtyRequired) {
+                startTime = System.currentTimeMillis();
+                if (moduleDirtyRequired) {
+                    headState.dirtyModulePaths = WorkTreeDirtyCheck.getDirtyModulePaths(repository, headState.modulePaths);
+                    headState.dirty = !headState.dirtyModulePaths.isEmpty();
+                } else {
+                    headState.dirty = WorkTreeDirtyCheck.isDirty(repository, "");
+                }
+                debugLog.accept(repository.getWorkTree() + " dirty check (" + (headState.dirty ? "dirty" : "clean") + ") in "
+                        + (System.currentTimeMillis() - startTime) + "ms");
+            }
+
+            return headState;
+        }
+    }
+
+    private Optional<String> getHeadBranch(Repository repository, ObjectId head, RefTipIndex refTipIndex) throws IOException {
+
+        if (branchOverride.isPresent()) {
+            return branchOverride;
+        }
+
+        if (head == null) {
+            return Optional.of("master");
+        }
+
+        boolean detachedHead = ObjectId.isId(repository.getFullBranch());
+        if (detachedHead) {
+            return inferDetachedHeadBranch(repository, head, refTipIndex);
+        }
+
+        return Optional.of(repository.getBranch());
+    }
+
+    /**
+     * Infer branch from local and remote tracking branches pointing to detached HEAD.
+     * If multiple branches match, first matching detached head branch preference pattern wins,
+     * local branches are preferred over remote tracking branches.
+     */
+    private Optional<String> inferDetachedHeadBranch(Repository repository, ObjectId head, RefTipIndex refTipIndex) {
+
+        List<String> candidateBranches = Stream.concat(
+                refTipIndex.getLocalBranches(head).stream(),
+                refTipIndex.getRemoteBranches(head).stream())
+                .distinct()
+                .collect(Collectors.toList());
+
+        List<String> branchPreferences = configuration.getDetachedHeadBranchPreferences();
+        Optional<String> inferredBranch = candidateBranches.stream()
+                .min(Comparator.comparingInt(branch -> {
+                    for (int i = 0; i < branchPreferences.size(); i++) {
+                        if (configuration.pattern(branchPreferences.get(i)).matches(branch)) {
+                            return i;
+                        }
+                    }
+                    return branchPreferences.size();
+                }));
+
+        debugLog.accept(repository.getDirectory() + " detached HEAD, branches pointing to HEAD " + candidateBranches
+                + (inferredBranch.isPresent() ? " -> infer branch " + inferredBranch.get() : ""));
+
+        return inferredBranch;
+    }
+
+    private List<String> getHeadTags(ObjectId head, RefTipIndex refTipIndex) {
+
+        if (tagOverride.isPresent()) {
+            return Collections.singletonList(tagOverride.get());
+        }
+
+        if (head == null) {
+            return Collections.emptyList();
+        }
+
+        return refTipIndex.getTags(head);
+    }
+
+    /**
+     * Paths of registered project directories and given project directory within work tree.
+     */
+    private Set<String> getModulePaths(File workTree, File projectDir) throws IOException {
+        Set<String> modulePaths = new HashSet<>();
+        if (projectDir != null) {
+            modulePaths.add(getModulePath(workTree, projectDir));
+        }
+        for (File registeredProjectDir : projectDirs) {
+            String modulePath = getModulePath(workTree, registeredProjectDir);
+            if (!modulePath.equals("..") && !modulePath.startsWith("../")) {
+                modulePaths.add(modulePath);
+            }
+        }
+        return modulePaths;
+    }
+
+    /**
+     * Determine last commit that touched the module directory, see {@link ModuleCommitIndex}.
+     * The index is built once for all registered modules of a repository,
+     * module directories that have not been registered are resolved on demand.
+     */
+    private String getModuleCommit(FileRepositoryBuilder repositoryBuilder, HeadState headState, File moduleDir) throws IOException {
+
+        if (headState.head == null) {
+            return headState.commit;
+        }
+
+        String modulePath = getModulePath(headState.workTree, moduleDir);
+        if (headState.moduleCommitIndex.isIndexed(modulePath)) {
+            return headState.moduleCommitIndex.getCommit(modulePath)
+                    .map(ObjectId::getName)
+                    .orElse(headState.commit);
+        }
+
+        try {
+            return headState.unregisteredModuleCommits.computeIfAbsent(modulePath, path -> {
+                debugLog.accept(moduleDir + " module not registered, resolve module commit on demand");
+                try (Repository repository = repositoryBuilder.build()) {
+                    counters.incrementRepositoryOpens();
+                    return ModuleCommitIndex.build(repository, headState.head, Collections.singleton(path))
+                            .getCommit(path)
+                            .map(ObjectId::getName)
+                            .orElse(headState.commit);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Determine if tracked files are modified, see {@link WorkTreeDirtyCheck}.
+     * Depending on configured dirty scope either the whole work tree or the module directory only is checked.
+     * Dirty state of all registered module directories is resolved once per repository, see {@link #resolveHeadState},
+     * module directories that have not been registered are resolved on demand.
+     */
+    private boolean isDirty(FileRepositoryBuilder repositoryBuilder, HeadState headState, File moduleDir) throws IOException {
+        if (headState.dirtyModulePaths == null) {
+            return headState.dirty;
+        }
+
+        String modulePath = getModulePath(headState.workTree, moduleDir);
+        if (headState.modulePaths.contains(modulePath)) {
+            return headState.dirtyModulePaths.contains(modulePath);
+        }
+
+        try {
+            return headState.unregisteredModuleDirtyStates.computeIfAbsent(modulePath, path -> {
+                debugLog.accept(moduleDir + " module not registered, check dirty state on demand");
+                try (Repository repository = repositoryBuilder.build()) {
+                    counters.incrementRepositoryOpens();
+                    return WorkTreeDirtyCheck.isDirty(repository, path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String getModulePath(File workTree, File moduleDir) throws IOException {
+        return workTree.getCanonicalFile().toPath()
+                .relativize(moduleDir.getCanonicalFile().toPath())
+                .toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * HEAD state of a repository, shared by all modules of the repository.
+     */
+    private static class HeadState {
+
+        File gitDir;
+
+        File workTree;
+
+        ObjectId head;
+
+        String commit;
+
+        Optional<String> branch;
+
+        List<String> tags;
+
+        int tagCount;
+
+        int branchCount;
+
+        /**
+         * registered module directories within work tree, only collected for module scoped versions
+         */
+        Set<String> modulePaths;
+
+        ModuleCommitIndex moduleCommitIndex;
+
+        /**
+         * module commits of module directories not covered by module commit index
+         */
+        final Map<String, String> unregisteredModuleCommits = new ConcurrentHashMap<>();
+
+        boolean dirty;
+
+        /**
+         * dirty registered module directories, only collected for module dirty scope
+         */
+        Set<String> dirtyModulePaths;
+
+        /**
+         * dirty states of module directories not covered by registered module directories
+         */
+        final Map<String, Boolean> unregisteredModuleDirtyStates = new ConcurrentHashMap<>();
+    }
+
+    private static class RepositoryThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "git-versioning-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
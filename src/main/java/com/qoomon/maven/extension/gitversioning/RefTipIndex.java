@@ -0,0 +1,114 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Reverse index of ref tips, maps commits to the names of tags and branches pointing to them.
+ * <p>
+ * Built once per repository, so HEAD lookups do not have to scan and peel all refs for every module.
+ */
+public class RefTipIndex {
+
+    private final Map<ObjectId, List<String>> tags = new HashMap<>();
+
+    private final Map<ObjectId, List<String>> localBranches = new HashMap<>();
+
+    private final Map<ObjectId, List<String>> remoteBranches = new HashMap<>();
+
+    private int tagCount = 0;
+
+    private int branchCount = 0;
+
+    private RefTipIndex() {
+    }
+
+    /**
+     * @param commit commit id
+     * @return names of tags pointing to commit, without 'refs/tags/' prefix
+     */
+    public List<String> getTags(ObjectId commit) {
+        return tags.getOrDefault(commit, Collections.emptyList());
+    }
+
+    /**
+     * @param commit commit id
+     * @return names of local branches pointing to commit, without 'refs/heads/' prefix, sorted by name
+     */
+    public List<String> getLocalBranches(ObjectId commit) {
+        return localBranches.getOrDefault(commit, Collections.emptyList());
+    }
+
+    /**
+     * @param commit commit id
+     * @return names of remote tracking branches pointing to commit, without 'refs/remotes/&lt;remote&gt;/' prefix, sorted by name
+     */
+    public List<String> getRemoteBranches(ObjectId commit) {
+        return remoteBranches.getOrDefault(commit, Collections.emptyList());
+    }
+
+    /**
+     * @return number of indexed tags
+     */
+    public int getTagCount() {
+        return tagCount;
+    }
+
+    /**
+     * @return number of indexed local and remote tracking branches
+     */
+    public int getBranchCount() {
+        return branchCount;
+    }
+
+    /**
+     * @param repository repository
+     * @return index of all tags, local branches and remote tracking branches
+     */
+    public static RefTipIndex build(Repository repository) {
+        RefTipIndex refTipIndex = new RefTipIndex();
+
+        for (Ref ref : repository.getAllRefs().values()) {
+            if (ref.isSymbolic()) {
+                // e.g. refs/remotes/origin/HEAD
+                continue;
+            }
+
+            String refName = ref.getName();
+            if (refName.startsWith(Constants.R_TAGS)) {
+                Ref peeledRef = repository.peel(ref);
+                ObjectId objectId = peeledRef.getPeeledObjectId() != null
+                        ? peeledRef.getPeeledObjectId()
+                        : peeledRef.getObjectId();
+                add(refTipIndex.tags, objectId, refName.substring(Constants.R_TAGS.length()));
+                refTipIndex.tagCount++;
+            } else if (refName.startsWith(Constants.R_HEADS)) {
+                add(refTipIndex.localBranches, ref.getObjectId(), refName.substring(Constants.R_HEADS.length()));
+                refTipIndex.branchCount++;
+            } else if (refName.startsWith(Constants.R_REMOTES)) {
+                String remoteBranchName = refName.substring(Constants.R_REMOTES.length());
+                int remoteSeparatorIndex = remoteBranchName.indexOf('/');
+                if (remoteSeparatorIndex >= 0) {
+                    add(refTipIndex.remoteBranches, ref.getObjectId(), remoteBranchName.substring(remoteSeparatorIndex + 1));
+                    refTipIndex.branchCount++;
+                }
+            }
+        }
+
+        refTipIndex.localBranches.values().forEach(Collections::sort);
+        refTipIndex.remoteBranches.values().forEach(Collections::sort);
+
+        return refTipIndex;
+    }
+
+    private static void add(Map<ObjectId, List<String>> index, ObjectId objectId, String name) {
+        if (objectId != null) {
+            index.computeIfAbsent(objectId, id -> new ArrayList<>(1)).add(name);
+        }
+    }
+}
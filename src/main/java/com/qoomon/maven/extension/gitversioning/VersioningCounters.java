@@ -0,0 +1,105 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import org.codehaus.plexus.component.annotations.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts expensive extension operations per build.
+ * <p>
+ * Counts are deterministic, in contrast to wall clock timing, so operation budgets can be asserted by tests.
+ */
+@Component(role = VersioningCounters.class, instantiationStrategy = "singleton")
+public class VersioningCounters {
+
+    private static final String SHARED_DATA_KEY = VersioningCounters.class.getName();
+
+    private static final int REPOSITORY_OPENS = 0;
+    private static final int TAG_PEELS = 1;
+    private static final int PARENT_POM_PARSES = 2;
+    private static final int CONFIG_LOADS = 3;
+    private static final int POM_WRITES = 4;
+    private static final int DISCOVERY_POM_PARSES = 5;
+
+    private volatile AtomicLongArray counts = new AtomicLongArray(6);
+
+    /**
+     * Share counts with instances of other class realms through execution request data.
+     * e.g. {@link VersioningPomReplacementMojo} is loaded by a plugin realm and gets its own instance of this component.
+     * Counts are shared by a JDK type, so they are accessible from any class realm.
+     *
+     * @param data execution request data
+     */
+    public synchronized void share(Map<String, Object> data) {
+        Object sharedCounts = data.putIfAbsent(SHARED_DATA_KEY, counts);
+        if (sharedCounts instanceof AtomicLongArray && sharedCounts != counts) {
+            AtomicLongArray shared = (AtomicLongArray) sharedCounts;
+            for (int i = 0; i < counts.length(); i++) {
+                shared.addAndGet(i, counts.get(i));
+            }
+            counts = shared;
+        }
+    }
+
+    public void incrementRepositoryOpens() {
+        counts.incrementAndGet(REPOSITORY_OPENS);
+    }
+
+    /**
+     * @param count number of peeled tags
+     */
+    public void addTagPeels(long count) {
+        counts.addAndGet(TAG_PEELS, count);
+    }
+
+    public void incrementParentPomParses() {
+        counts.incrementAndGet(PARENT_POM_PARSES);
+    }
+
+    public void incrementConfigLoads() {
+        counts.incrementAndGet(CONFIG_LOADS);
+    }
+
+    public void incrementPomWrites() {
+        counts.incrementAndGet(POM_WRITES);
+    }
+
+    public void incrementDiscoveryPomParses() {
+        counts.incrementAndGet(DISCOVERY_POM_PARSES);
+    }
+
+    public long getRepositoryOpens() {
+        return counts.get(REPOSITORY_OPENS);
+    }
+
+    public long getTagPeels() {
+        return counts.get(TAG_PEELS);
+    }
+
+    public long getParentPomParses() {
+        return counts.get(PARENT_POM_PARSES);
+    }
+
+    public long getConfigLoads() {
+        return counts.get(CONFIG_LOADS);
+    }
+
+    public long getPomWrites() {
+        return counts.get(POM_WRITES);
+    }
+
+    public long getDiscoveryPomParses() {
+        return counts.get(DISCOVERY_POM_PARSES);
+    }
+
+    @Override
+    public String toString() {
+        return "repositoryOpens=" + getRepositoryOpens()
+                + " tagPeels=" + getTagPeels()
+                + " parentPomParses=" + getParentPomParses()
+                + " configLoads=" + getConfigLoads()
+                + " pomWrites=" + getPomWrites()
+                + " discoveryPomParses=" + getDiscoveryPomParses();
+    }
+}
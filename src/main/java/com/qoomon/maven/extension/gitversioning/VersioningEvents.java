@@ -0,0 +1,113 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import java.io.File;
+
+/**
+ * JDK Flight Recorder events of extension activity.
+ * <p>
+ * Events are only committed while a recording with these events enabled is active, otherwise
+ * event fields are not even populated. Event types extend {@code jdk.jfr.Event}, so they are compiled
+ * separately from {@code src/main/java-jfr} by JDK 11+ builds and loaded reflectively, if JFR is available.
+ * Otherwise no events are recorded and begin methods return null, so the extension still runs on JVMs without JFR support.
+ * <p>
+ * e.g. {@code MAVEN_OPTS="-XX:StartFlightRecording=filename=build.jfr" mvn install}
+ */
+public class VersioningEvents {
+
+    private static final String JFR_RECORDER_CLASS_NAME = "com.qoomon.maven.extension.gitversioning.JfrEventRecorder";
+
+    private static final Recorder RECORDER = loadRecorder();
+
+    private static Recorder loadRecorder() {
+        ClassLoader classLoader = VersioningEvents.class.getClassLoader();
+        try {
+            Class.forName("jdk.jfr.Event", false, classLoader);
+            return (Recorder) Class.forName(JFR_RECORDER_CLASS_NAME, true, classLoader).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return true if events are recorded by JFR
+     */
+    static boolean isAvailable() {
+        return RECORDER != null;
+    }
+
+    static Object beginRepositoryOpen() {
+        return RECORDER != null ? RECORDER.beginRepositoryOpen() : null;
+    }
+
+    static void commitRepositoryOpen(Object event, Object gav, Object gitDir) {
+        if (event != null) {
+            RECORDER.commitRepositoryOpen(event, gav, gitDir);
+        }
+    }
+
+    static Object beginTagIndexBuild() {
+        return RECORDER != null ? RECORDER.beginTagIndexBuild() : null;
+    }
+
+    static void commitTagIndexBuild(Object event, Object gitDir, int tagCount, int branchCount, boolean cacheHit) {
+        if (event != null) {
+            RECORDER.commitTagIndexBuild(event, gitDir, tagCount, branchCount, cacheHit);
+        }
+    }
+
+    static Object beginVersionDeduction() {
+        return RECORDER != null ? RECORDER.beginVersionDeduction() : null;
+    }
+
+    static void commitVersionDeduction(Object event, Object gav, Object gitDir, ProjectVersion projectVersion, int headTagCount) {
+        if (event != null) {
+            RECORDER.commitVersionDeduction(event, gav, gitDir, projectVersion, headTagCount);
+        }
+    }
+
+    static Object beginParentPomParse() {
+        return RECORDER != null ? RECORDER.beginParentPomParse() : null;
+    }
+
+    static void commitParentPomParse(Object event, Object gav, Object parentPomFile, boolean parentMatch) {
+        if (event != null) {
+            RECORDER.commitParentPomParse(event, gav, parentPomFile, parentMatch);
+        }
+    }
+
+    static Object beginPomWrite() {
+        return RECORDER != null ? RECORDER.beginPomWrite() : null;
+    }
+
+    static void commitPomWrite(Object event, Object gav, File pomFile) {
+        if (event != null) {
+            RECORDER.commitPomWrite(event, gav, pomFile);
+        }
+    }
+
+    /**
+     * Event recorder, begin methods return an event handle to be passed to the matching commit method.
+     */
+    interface Recorder {
+
+        Object beginRepositoryOpen();
+
+        void commitRepositoryOpen(Object event, Object gav, Object gitDir);
+
+        Object beginTagIndexBuild();
+
+        void commitTagIndexBuild(Object event, Object gitDir, int tagCount, int branchCount, boolean cacheHit);
+
+        Object beginVersionDeduction();
+
+        void commitVersionDeduction(Object event, Object gav, Object gitDir, ProjectVersion projectVersion, int headTagCount);
+
+        Object beginParentPomParse();
+
+        void commitParentPomParse(Object event, Object gav, Object parentPomFile, boolean parentMatch);
+
+        Object beginPomWrite();
+
+        void commitPomWrite(Object event, Object gav, File pomFile);
+    }
+}
@@ -0,0 +1,64 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.logging.Logger;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Writes {@link VersioningManifest} to top level project build directory at session end
+ * and reports JGit window cache occupancy and {@link VersioningCounters} at debug level.
+ */
+@Component(role = AbstractMavenLifecycleParticipant.class, hint = "git-versioning")
+public class VersioningLifecycleParticipant extends AbstractMavenLifecycleParticipant {
+
+    private static final String MANIFEST_PROPERTY_KEY = "gitVersioning.manifest";
+
+    private Logger logger;
+
+    private VersioningManifest manifest;
+
+    private VersioningCounters counters;
+
+    @Inject
+    public VersioningLifecycleParticipant(Logger logger, VersioningManifest manifest, VersioningCounters counters) {
+        this.logger = logger;
+        this.manifest = manifest;
+        this.counters = counters;
+    }
+
+    @Override
+    public void afterSessionEnd(MavenSession session) throws MavenExecutionException {
+
+        if (logger.isDebugEnabled()) {
+            JGitStorage.windowCacheOccupancy().ifPresent(logger::debug);
+            logger.debug("operation counts " + counters);
+        }
+
+        if ("false".equals(session.getUserProperties().getProperty(MANIFEST_PROPERTY_KEY)) || manifest.isEmpty()) {
+            return;
+        }
+
+        File buildDirectory;
+        MavenProject topLevelProject = session.getTopLevelProject();
+        if (topLevelProject != null && topLevelProject.getBuild().getDirectory() != null) {
+            buildDirectory = new File(topLevelProject.getBuild().getDirectory());
+        } else {
+            buildDirectory = new File(session.getRequest().getMultiModuleProjectDirectory(), "target");
+        }
+
+        File manifestFile = new File(buildDirectory, VersioningManifest.FILE_NAME);
+        try {
+            manifest.write(manifestFile);
+            logger.debug("write versioning manifest " + manifestFile);
+        } catch (IOException e) {
+            throw new MavenExecutionException("Git Versioning Manifest", e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import com.qoomon.maven.GAV;
+import org.codehaus.plexus.component.annotations.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects resolved project versions to provide them as machine readable manifest file for downstream tooling.
+ */
+@Component(role = VersioningManifest.class, instantiationStrategy = "singleton")
+public class VersioningManifest {
+
+    static final String FILE_NAME = "git-versioning.json";
+
+    private final Map<GAV, Entry> entries = new LinkedHashMap<>();
+
+    private long durationNanos = 0;
+
+    /**
+     * @param gav     original project coordinates
+     * @param version resolved version
+     * @param branch  branch name, empty if version was deduced from tag
+     * @param tag     tag name, empty if version was deduced from branch
+     * @param commit  commit hash
+     */
+    public synchronized void addProject(GAV gav, String version, String branch, String tag, String commit) {
+        entries.put(gav, new Entry(gav, version, branch, tag, commit));
+    }
+
+    /**
+     * @param durationNanos time spent resolving versions
+     */
+    public synchronized void addDuration(long durationNanos) {
+        this.durationNanos += durationNanos;
+    }
+
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Writes manifest as json file with a single write.
+     *
+     * @param file manifest file
+     * @throws IOException if write fails
+     */
+    public synchronized void write(File file) throws IOException {
+        StringBuilder json = new StringBuilder(256 + entries.size() * 256);
+        json.append("{\n");
+        json.append("  \"durationMillis\": ").append(TimeUnit.NANOSECONDS.toMillis(durationNanos)).append(",\n");
+        json.append("  \"projects\": [");
+        String separator = "\n";
+        for (Entry entry : entries.values()) {
+            json.append(separator).append("    {");
+            appendField(json, "groupId", entry.gav.getGroupId()).append(", ");
+            appendField(json, "artifactId", entry.gav.getArtifactId()).append(", ");
+            appendField(json, "originalVersion", entry.gav.getVersion()).append(", ");
+            appendField(json, "version", entry.version).append(", ");
+            appendField(json, "branch", entry.branch).append(", ");
+            appendField(json, "tag", entry.tag).append(", ");
+            appendField(json, "commit", entry.commit);
+            json.append("}");
+            separator = ",\n";
+        }
+        json.append("\n  ]\n");
+        json.append("}\n");
+
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static StringBuilder appendField(StringBuilder json, String name, String value) {
+        json.append('"').append(name).append("\": \"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        return json.append('"');
+    }
+
+    private static class Entry {
+
+        final GAV gav;
+        final String version;
+        final String branch;
+        final String tag;
+        final String commit;
+
+        Entry(GAV gav, String version, String branch, String tag, String commit) {
+            this.gav = gav;
+            this.version = version;
+            this.branch = branch;
+            this.tag = tag;
+            this.commit = commit;
+        }
+    }
+}
@@ -5,25 +5,19 @@ import com.qoomon.maven.GAV;
 import com.qoomon.maven.ModelUtil;
 import com.qoomon.maven.extension.gitversioning.config.VersioningConfiguration;
 import com.qoomon.maven.extension.gitversioning.config.VersioningConfigurationProvider;
-import com.qoomon.maven.extension.gitversioning.config.model.VersionFormatDescription;
-import org.apache.commons.lang3.text.StrSubstitutor;
-import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 import org.apache.maven.building.Source;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.PluginExecution;
+import org.apache.maven.model.Profile;
 import org.apache.maven.model.building.DefaultModelProcessor;
 import org.apache.maven.model.building.ModelProcessor;
-import org.apache.maven.model.io.ModelParseException;
 import org.apache.maven.session.scope.internal.SessionScope;
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.logging.Logger;
-import org.eclipse.jgit.lib.Constants;
-import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 
 import javax.inject.Inject;
 import java.io.File;
@@ -31,7 +25,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.qoomon.maven.extension.gitversioning.SessionScopeUtil.*;
@@ -49,6 +42,10 @@ public class VersioningModelProcessor extends DefaultModelProcessor {
 
     private VersioningConfigurationProvider configurationProvider;
 
+    private VersioningManifest manifest;
+
+    private VersioningCounters counters;
+
     private static final String GIT_VERSIONING_PROPERTY_KEY = "gitVersioning";
 
     private static final String PROJECT_BRANCH_PROPERTY_KEY = "project.branch";
@@ -57,21 +54,39 @@ public class VersioningModelProcessor extends DefaultModelProcessor {
     private static final String PROJECT_TAG_PROPERTY_KEY = "project.tag";
     private static final String PROJECT_TAG_ENVIRONMENT_VARIABLE_NAME = "MAVEN_PROJECT_TAG";
 
+    private static final String THREADS_PROPERTY_KEY = "gitVersioning.threads";
+
+    private static final Set<String> PROJECT_GROUP_ID_EXPRESSIONS = new HashSet<>(Arrays.asList(
+            "${project.groupId}", "${pom.groupId}", "${groupId}"));
+
+    private static final Set<String> PROJECT_VERSION_EXPRESSIONS = new HashSet<>(Arrays.asList(
+            "${project.version}", "${pom.version}", "${version}"));
+
     // can not be injected cause it is not always available
     private MavenSession mavenSession;
 
-    private VersioningConfiguration configuration;
+    private ProjectVersionDeducer projectVersionDeducer;
 
     private boolean initialized = false;
 
     private boolean disabled = false;
 
+    private boolean pomReplacementRequired = true;
+
+    /**
+     * reactor projects by groupId:artifactId, only discovered for module scoped version formats or if opt-in, see {@link #prepareRepositories()}
+     */
+    private final Map<String, ReactorProject> reactorProjects = new HashMap<>();
+
 
     @Inject
-    public VersioningModelProcessor(Logger logger, SessionScope sessionScope, VersioningConfigurationProvider configurationProvider) {
+    public VersioningModelProcessor(Logger logger, SessionScope sessionScope, VersioningConfigurationProvider configurationProvider,
+                                    VersioningManifest manifest, VersioningCounters counters) {
         this.logger = logger;
         this.sessionScope = sessionScope;
         this.configurationProvider = configurationProvider;
+        this.manifest = manifest;
+        this.counters = counters;
     }
 
     @Override
@@ -114,6 +129,8 @@ public class VersioningModelProcessor extends DefaultModelProcessor {
                 return model;
             }
 
+            long startTime = System.nanoTime();
+
             GAV projectGav = GAV.of(model);
 
             // deduce getVersion
@@ -125,20 +142,30 @@ public class VersioningModelProcessor extends DefaultModelProcessor {
             model.addProperty("project.commit", projectVersion.getCommit());
 
             // update project getVersion
-            if (model.getVersion() != null) {
+            // module scoped versions differ from parent version, so they are also set on projects inheriting their version
+            if (model.getVersion() != null || projectVersionDeducer.isModuleScoped()) {
                 logger.debug(projectGav + " temporary override getVersion with " + projectVersion);
                 model.setVersion(projectVersion.getVersion());
             }
 
+            // update versions of references to other reactor projects, e.g. ${project.version} within dependency management
+            if (projectVersionDeducer.isModuleScoped()) {
+                updateReactorDependencyVersions(model, projectGav);
+            }
+
             // update parent getVersion
             if (model.getParent() != null) {
                 File parentPomFile = new File(pomFile.getParentFile(), model.getParent().getRelativePath());
                 GAV parentGav = GAV.of(model.getParent());
                 if (parentPomFile.exists() && isProjectPom(parentPomFile)) {
                     // check if parent pom file match project parent
+                    Object parentPomParseEvent = VersioningEvents.beginParentPomParse();
                     Model parentModel = ModelUtil.readModel(parentPomFile);
+                    counters.incrementParentPomParses();
                     GAV parentProjectGav = GAV.of(parentModel);
-                    if (parentProjectGav.equals(parentGav)) {
+                    boolean parentMatch = parentProjectGav.equals(parentGav);
+                    VersioningEvents.commitParentPomParse(parentPomParseEvent, projectGav, parentPomFile, parentMatch);
+                    if (parentMatch) {
                         ProjectVersion parentProjectVersion = deduceProjectVersion(parentGav, parentPomFile.getParentFile());
                         logger.debug(projectGav + " adjust parent getVersion to " + parentProjectVersion);
                         model.getParent().setVersion(parentProjectVersion.getVersion());
@@ -146,8 +173,17 @@ public class VersioningModelProcessor extends DefaultModelProcessor {
                 }
             }
 
+            // effective version, project version if declared, otherwise inherited parent version
+            String effectiveVersion = model.getVersion() != null ? model.getVersion() : model.getParent().getVersion();
+            manifest.addProject(projectGav, effectiveVersion,
+                    projectVersion.getBranch(), projectVersion.getTag(), projectVersion.getCommit());
+
             // add plugin
-            addBuildPlugin(model); // has to be removed from model by plugin itself
+            if (pomReplacementRequired) {
+                addBuildPlugin(model); // has to be removed from model by plugin itself
+            }
+
+            manifest.addDuration(System.nanoTime() - startTime);
 
             return model;
         } catch (Exception e) {
@@ -164,6 +200,7 @@ public class VersioningModelProcessor extends DefaultModelProcessor {
             disabled = true;
         } else {
             mavenSession = mavenSessionOptional.get();
+            counters.share(mavenSession.getRequest().getData());
 
             //  check if extension is disabled
             String gitVersioning = mavenSession.getUserProperties().getProperty(GIT_VERSIONING_PROPERTY_KEY);
@@ -173,7 +210,125 @@ public class VersioningModelProcessor extends DefaultModelProcessor {
             }
 
             if (!disabled) {
-                this.configuration = configurationProvider.get();
+                VersioningConfiguration configuration = configurationProvider.get();
+                VersioningPomReplacementMojo.setSlimPom(mavenSession.getRequest().getData(), configuration.isSlimPom());
+
+                Optional<String> branchOverride = Stream.of(
+                        mavenSession.getUserProperties().getProperty(PROJECT_BRANCH_PROPERTY_KEY),
+                        System.getenv(PROJECT_BRANCH_ENVIRONMENT_VARIABLE_NAME))
+                        .sequential()
+                        .filter(Objects::nonNull).findFirst();
+
+                Optional<String> tagOverride = Stream.of(
+                        mavenSession.getUserProperties().getProperty(PROJECT_TAG_PROPERTY_KEY),
+                        System.getenv(PROJECT_TAG_ENVIRONMENT_VARIABLE_NAME))
+                        .sequential()
+                        .filter(Objects::nonNull).findFirst();
+
+                Optional<String> pomReplacementGoal = VersioningPomReplacementMojo.requiredBy(mavenSession.getGoals());
+                pomReplacementRequired = pomReplacementGoal.isPresent();
+                if (pomReplacementRequired) {
+                    logger.debug("pom replacement required by goal " + pomReplacementGoal.get());
+                } else {
+                    logger.debug("skip pom replacement, none of goals " + mavenSession.getGoals()
+                            + " reaches phase of " + VersioningPomReplacementMojo.GOAL + " plugin execution");
+                }
+
+                this.projectVersionDeducer = new ProjectVersionDeducer(configuration, branchOverride, tagOverride, logger::debug, counters);
+
+                prepareRepositories();
+            }
+        }
+    }
+
+    /**
+     * Discover all reactor projects up front and resolve their repositories,
+     * e.g. to resolve module scoped versions of all modules of a repository by a single history walk
+     * or to resolve modules in sibling repositories or submodules concurrently.
+     * <p>
+     * Discovery parses all reactor pom files once more, which does not pay off for the common single repository project,
+     * therefore it only runs for module scoped version formats or if opt-in by {@value #THREADS_PROPERTY_KEY} user property.
+     */
+    private void prepareRepositories() throws IOException {
+        int threads = 1;
+        String threadsProperty = mavenSession.getUserProperties().getProperty(THREADS_PROPERTY_KEY);
+        if (threadsProperty != null) {
+            try {
+                threads = Integer.parseInt(threadsProperty.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid " + THREADS_PROPERTY_KEY + " '" + threadsProperty + "', expected number.", e);
+            }
+        }
+        if (threads <= 1 && !projectVersionDeducer.isModuleScoped()) {
+            // resolve repositories lazily in model read order
+            return;
+        }
+
+        File rootPomFile = mavenSession.getRequest().getPom() != null
+                ? mavenSession.getRequest().getPom()
+                : new File(mavenSession.getRequest().getMultiModuleProjectDirectory(), "pom.xml");
+
+        Set<File> projectDirs = new LinkedHashSet<>();
+        collectReactorProjects(rootPomFile, projectDirs);
+        projectVersionDeducer.prepare(projectDirs, threads);
+    }
+
+    private void collectReactorProjects(File pomFile, Set<File> projectDirs) throws IOException {
+        File projectDir = pomFile.getParentFile().getCanonicalFile();
+        if (!pomFile.isFile() || !projectDirs.add(projectDir)) {
+            return;
+        }
+
+        Model model;
+        try {
+            model = ModelUtil.readModel(pomFile);
+            counters.incrementDiscoveryPomParses();
+            GAV gav = GAV.of(model);
+            reactorProjects.putIfAbsent(gav.getGroupId() + ":" + gav.getArtifactId(), new ReactorProject(gav, projectDir));
+        } catch (IOException | RuntimeException e) {
+            // maven reports invalid pom files itself, when reading the project
+            logger.debug("skip repository discovery of modules of " + pomFile + ": " + e.getMessage());
+            return;
+        }
+        List<String> modules = new ArrayList<>(model.getModules());
+        for (Profile profile : model.getProfiles()) {
+            modules.addAll(profile.getModules());
+        }
+        for (String module : modules) {
+            File modulePomFile = new File(pomFile.getParentFile(), module);
+            if (modulePomFile.isDirectory()) {
+                modulePomFile = new File(modulePomFile, "pom.xml");
+            }
+            collectReactorProjects(modulePomFile, projectDirs);
+        }
+    }
+
+    /**
+     * Set deduced version of referenced reactor projects, if referenced by {@code ${project.version}} or by original version.
+     */
+    private void updateReactorDependencyVersions(Model model, GAV projectGav) throws IOException {
+        List<Dependency> dependencies = new ArrayList<>(model.getDependencies());
+        if (model.getDependencyManagement() != null) {
+            dependencies.addAll(model.getDependencyManagement().getDependencies());
+        }
+        for (Profile profile : model.getProfiles()) {
+            dependencies.addAll(profile.getDependencies());
+            if (profile.getDependencyManagement() != null) {
+                dependencies.addAll(profile.getDependencyManagement().getDependencies());
+            }
+        }
+
+        for (Dependency dependency : dependencies) {
+            String groupId = PROJECT_GROUP_ID_EXPRESSIONS.contains(dependency.getGroupId()) ? projectGav.getGroupId() : dependency.getGroupId();
+            ReactorProject reactorProject = reactorProjects.get(groupId + ":" + dependency.getArtifactId());
+            if (reactorProject == null || dependency.getVersion() == null) {
+                continue;
+            }
+            if (PROJECT_VERSION_EXPRESSIONS.contains(dependency.getVersion())
+                    || dependency.getVersion().equals(reactorProject.gav.getVersion())) {
+                String version = projectVersionDeducer.deduceProjectVersion(reactorProject.gav, reactorProject.projectDir).getVersion();
+                logger.debug(projectGav + " adjust dependency " + dependency.getManagementKey() + " getVersion to " + version);
+                dependency.setVersion(version);
             }
         }
     }
@@ -202,189 +357,32 @@ public class VersioningModelProcessor extends DefaultModelProcessor {
     }
 
 
-    private ProjectVersion deduceProjectVersion(GAV gav, File gitDir) throws IOException {
-
-        FileRepositoryBuilder repositoryBuilder = new FileRepositoryBuilder().findGitDir(gitDir);
-        logger.debug(gav + "git directory " + repositoryBuilder.getGitDir());
-
-        Optional<ProjectVersion> projectVersion = Optional.empty();
-        try (Repository repository = repositoryBuilder.build()) {
-
-            final String headCommit = getHeadCommit(repository);
-            final List<String> headTags = getHeadTags(repository);
-
-            if (!configuration.getTagVersionDescriptions().isEmpty()) {
-
-                Optional<String> versionTag = Optional.empty();
-                VersionFormatDescription tagVersionFormatDescription = null;
-                for (VersionFormatDescription versionFormatDescription : configuration.getTagVersionDescriptions()) {
-                    versionTag = headTags.stream().sequential()
-                            .filter(tagName -> tagName.matches(versionFormatDescription.pattern))
-                            .sorted((tagLeft, tagRight) -> {
-                                DefaultArtifactVersion tagVersionLeft = new DefaultArtifactVersion(tagLeft.replaceFirst(versionFormatDescription.prefix, ""));
-                                DefaultArtifactVersion tagVersionRight = new DefaultArtifactVersion(tagRight.replaceFirst(versionFormatDescription.prefix, ""));
-                                return tagVersionLeft.compareTo(tagVersionRight) * -1; // -1 revert sorting, latest version first
-
-                            })
-                            .findFirst();
-                    if (versionTag.isPresent()) {
-                        tagVersionFormatDescription = versionFormatDescription;
-                        break;
-                    }
-                }
-
-                if (versionTag.isPresent()) {
-
-                    Map<String, String> tagVersionDataMap = buildCommonVersionDataMap(headCommit, gav);
-                    tagVersionDataMap.put("tag", versionTag.get()
-                            .replaceFirst(tagVersionFormatDescription.prefix, "")
-                            .replace("/", "-"));
-
-                    String tagVersion = StrSubstitutor.replace(tagVersionFormatDescription.versionFormat, tagVersionDataMap);
-
-                    projectVersion = Optional.of(new ProjectVersion(tagVersion, headCommit, "", versionTag.get()));
-                }
-            }
-
-
-            if (!projectVersion.isPresent()) {
-                final String headBranch = getHeadBranch(repository)
-                        .orElseThrow(() -> new ModelParseException(gitDir + ": No Branch Name provided in Detached HEAD state. See documentation.", 0, 0));
-
-                // find version format for branch
-                VersionFormatDescription branchVersionFormatDescription = configuration.getBranchVersionDescriptions().stream()
-                        .filter(versionFormatDescription -> headBranch.matches(versionFormatDescription.pattern))
-                        .findFirst()
-                        .orElseThrow(() -> new ModelParseException(gitDir + ": No version format for branch '" + headBranch + "' found.", 0, 0));
-
-                Map<String, String> branchVersionDataMap = buildCommonVersionDataMap(headCommit, gav);
-                branchVersionDataMap.put("branch", headBranch
-                        .replaceFirst(branchVersionFormatDescription.prefix, "")
-                        .replace("/", "-"));
-
-                String branchVersion = StrSubstitutor.replace(branchVersionFormatDescription.versionFormat, branchVersionDataMap);
-
-                projectVersion = Optional.of(new ProjectVersion(branchVersion, headCommit, headBranch, ""));
-            }
-
-
-            logger.info(gav.getArtifactId()
-                    + ":" + gav.getVersion()
-                    + (!projectVersion.get().getTag().isEmpty()
-                    ? " - tag: " + projectVersion.get().getTag()
-                    : " - branch: " + projectVersion.get().getBranch())
-                    + " -> version: " + projectVersion.get().getVersion());
-
-            return projectVersion.get();
-        }
-    }
-
-    private static Map<String, String> buildCommonVersionDataMap(String commit, GAV gav) {
-        Map<String, String> versionDataMap = new HashMap<>();
-        versionDataMap.put("commit", commit);
-        versionDataMap.put("commit.short", commit
-                .substring(0, 7));
-        versionDataMap.put("version", gav.getVersion());
-        versionDataMap.put("version.release", gav.getVersion()
-                .replaceFirst("-SNAPSHOT$", ""));
-        return versionDataMap;
-    }
-
-    private Optional<String> getHeadBranch(Repository repository) throws IOException {
-
-        Optional<String> branchOverwrite = Stream.of(
-                mavenSession.getUserProperties().getProperty(PROJECT_BRANCH_PROPERTY_KEY),
-                System.getenv(PROJECT_BRANCH_ENVIRONMENT_VARIABLE_NAME))
-                .sequential()
-                .filter(Objects::nonNull).findFirst();
-        if (branchOverwrite.isPresent()) {
-            return branchOverwrite;
-        }
-
-        ObjectId head = repository.resolve(Constants.HEAD);
-        if (head == null) {
-            return Optional.of("master");
-        }
-
-        boolean detachedHead = ObjectId.isId(repository.getFullBranch());
-        if (detachedHead) {
-            return Optional.empty();
-        }
-
-        return Optional.of(repository.getBranch());
-    }
-
-
-    private List<String> getHeadTags(Repository repository) throws IOException {
-
-        Optional<String> tagOverwrite = Stream.of(
-                mavenSession.getUserProperties().getProperty(PROJECT_TAG_PROPERTY_KEY),
-                System.getenv(PROJECT_TAG_ENVIRONMENT_VARIABLE_NAME))
-                .sequential()
-                .filter(Objects::nonNull).findFirst();
-        if (tagOverwrite.isPresent()) {
-            return Collections.singletonList(tagOverwrite.get());
-        }
-
-        ObjectId head = repository.resolve(Constants.HEAD);
-        if (head == null) {
-            return Collections.emptyList();
-        }
+    private ProjectVersion deduceProjectVersion(GAV gav, File projectDir) throws IOException {
 
-        return repository.getTags().values().stream()
-                .map(repository::peel)
-                .filter(ref -> {
-                    ObjectId objectId;
-                    if (ref.getPeeledObjectId() != null) {
-                        objectId = ref.getPeeledObjectId();
-                    } else {
-                        objectId = ref.getObjectId();
-                    }
-                    return objectId.equals(head);
-                })
-                .map(ref -> ref.getName().replaceFirst("^refs/tags/", ""))
-                .collect(Collectors.toList());
-    }
+        ProjectVersion projectVersion = projectVersionDeducer.deduceProjectVersion(gav, projectDir);
 
-    private String getHeadCommit(Repository repository) throws IOException {
+        logger.info(gav.getArtifactId()
+                + ":" + gav.getVersion()
+                + (!projectVersion.getTag().isEmpty()
+                ? " - tag: " + projectVersion.getTag()
+                : " - branch: " + projectVersion.getBranch())
+                + " -> version: " + projectVersion.getVersion());
 
-        ObjectId head = repository.resolve(Constants.HEAD);
-        if (head == null) {
-            return "0000000000000000000000000000000000000000";
-        }
-        return head.getName();
+        return projectVersion;
     }
 
-    class ProjectVersion {
-
-        final String value;
-        final String commit;
-        final String branch;
-        final String tag;
-
-        ProjectVersion(String version, String commit, String branch, String tag) {
-            this.value = version;
-            this.commit = commit;
-            this.branch = branch;
-            this.tag = tag;
-        }
-
-        String getVersion() {
-            return value;
-        }
+    /**
+     * Reactor project as discovered by {@link #collectReactorProjects(File, Set)}
+     */
+    private static class ReactorProject {
 
-        String getCommit() {
-            return commit;
-        }
+        final GAV gav;
 
-        String getBranch() {
-            return branch;
-        }
+        final File projectDir;
 
-        String getTag() {
-            return tag;
+        ReactorProject(GAV gav, File projectDir) {
+            this.gav = gav;
+            this.projectDir = projectDir;
         }
     }
-
-
 }
@@ -4,6 +4,8 @@ import com.qoomon.maven.BuildProperties;
 import com.qoomon.maven.GAV;
 import com.qoomon.maven.ModelUtil;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -15,6 +17,11 @@ import org.codehaus.plexus.logging.Logger;
 import javax.inject.Inject;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
 
 /**
  * Temporarily replace original pom files with pom files generated from in memory project models.
@@ -31,20 +38,46 @@ public class VersioningPomReplacementMojo extends AbstractMojo {
 
     static final String GOAL = "pom-replacement";
 
+    private static final String SLIM_POM_DATA_KEY = VersioningPomReplacementMojo.class.getName() + ".slimPom";
+
+    /**
+     * default lifecycle phases in execution order
+     */
+    private static final List<String> DEFAULT_LIFECYCLE_PHASES = Arrays.asList(
+            "validate", "initialize", "generate-sources", "process-sources", "generate-resources", "process-resources",
+            "compile", "process-classes", "generate-test-sources", "process-test-sources", "generate-test-resources",
+            "process-test-resources", "test-compile", "process-test-classes", "test", "prepare-package", "package",
+            "pre-integration-test", "integration-test", "post-integration-test", "verify", "install", "deploy");
+
+    /**
+     * phases of clean and site lifecycle, they never reach default lifecycle phase of this mojo
+     */
+    private static final List<String> OTHER_LIFECYCLE_PHASES = Arrays.asList(
+            "pre-clean", "clean", "post-clean", "pre-site", "site", "post-site", "site-deploy");
+
+    private static final String PHASE = "prepare-package";
+
+    private static final String HELP_GOAL_PREFIX = "help:";
+
     private MavenSession mavenSession;
 
     private Logger logger;
 
+    private VersioningCounters counters;
+
     @Inject
-    public VersioningPomReplacementMojo(Logger logger, MavenSession mavenSession) {
+    public VersioningPomReplacementMojo(Logger logger, MavenSession mavenSession, VersioningCounters counters) {
         this.mavenSession = mavenSession;
         this.logger = logger;
+        this.counters = counters;
     }
 
     @Override
     public synchronized void execute() throws MojoExecutionException, MojoFailureException {
 
         try {
+            counters.share(mavenSession.getRequest().getData());
+
             MavenProject currentProject = mavenSession.getCurrentProject();
 
             GAV gav = GAV.of(currentProject);
@@ -59,6 +92,87 @@ public class VersioningPomReplacementMojo extends AbstractMojo {
         }
     }
 
+    /**
+     * Determine if pom replacement can matter for requested goals.
+     * Replacement is required if any goal reaches the phase of this mojo, the first phase generated pom files can be packaged,
+     * installed or deployed. Plugin goals (except help goals), unknown phases and no goals (default goal) are treated as reaching it.
+     *
+     * @param goals requested goals and phases
+     * @return goal requiring pom replacement, empty if none
+     */
+    static Optional<String> requiredBy(List<String> goals) {
+        if (goals.isEmpty()) {
+            return Optional.of("<default goal>");
+        }
+        int phaseIndex = DEFAULT_LIFECYCLE_PHASES.indexOf(PHASE);
+        return goals.stream()
+                .filter(goal -> {
+                    if (goal.contains(":")) {
+                        return !goal.startsWith(HELP_GOAL_PREFIX);
+                    }
+                    if (OTHER_LIFECYCLE_PHASES.contains(goal)) {
+                        return false;
+                    }
+                    int goalPhaseIndex = DEFAULT_LIFECYCLE_PHASES.indexOf(goal);
+                    return goalPhaseIndex < 0 || goalPhaseIndex >= phaseIndex;
+                })
+                .findFirst();
+    }
+
+    /**
+     * Configure slim pom mode through execution request data, this mojo is loaded by a plugin realm,
+     * so configuration is passed by a JDK type, see {@link #slimModel(Model)}.
+     *
+     * @param data    execution request data
+     * @param slimPom true to write reduced consumer pom
+     */
+    static void setSlimPom(Map<String, Object> data, boolean slimPom) {
+        data.put(SLIM_POM_DATA_KEY, slimPom);
+    }
+
+    /**
+     * @param model   original model with resolved version
+     * @param slimPom true to write reduced consumer pom
+     * @return model to write to replacement pom file, parent poms ({@code pom} packaging) are always written in full,
+     * because inheriting projects depend on build, plugin management, profiles, repositories, ...
+     */
+    static Model replacementModel(Model model, boolean slimPom) {
+        if (!slimPom || "pom".equals(model.getPackaging())) {
+            return model;
+        }
+        return slimModel(model);
+    }
+
+    /**
+     * Reduce model to elements relevant for consumers of the artifact, to cut repository pom size and parse time
+     * of downstream dependency resolution.
+     *
+     * @param model original model with resolved version
+     * @return model with coordinates, parent, properties, dependency management and dependencies only
+     */
+    static Model slimModel(Model model) {
+        Model slimModel = new Model();
+        slimModel.setModelEncoding(model.getModelEncoding());
+        slimModel.setModelVersion(model.getModelVersion());
+        if (model.getParent() != null) {
+            slimModel.setParent(model.getParent().clone());
+        }
+        slimModel.setGroupId(model.getGroupId());
+        slimModel.setArtifactId(model.getArtifactId());
+        slimModel.setVersion(model.getVersion());
+        slimModel.setPackaging(model.getPackaging());
+        Properties properties = new Properties();
+        properties.putAll(model.getProperties());
+        slimModel.setProperties(properties);
+        if (model.getDependencyManagement() != null) {
+            slimModel.setDependencyManagement(model.getDependencyManagement().clone());
+        }
+        for (Dependency dependency : model.getDependencies()) {
+            slimModel.addDependency(dependency.clone());
+        }
+        return slimModel;
+    }
+
     static Plugin asPlugin() {
         Plugin plugin = new Plugin();
         plugin.setGroupId(BuildProperties.projectGroupId());
@@ -75,10 +189,15 @@ public class VersioningPomReplacementMojo extends AbstractMojo {
      */
     public void temporaryOverridePomFileFromModel(MavenProject project) throws IOException {
 
+        boolean slimPom = Boolean.TRUE.equals(mavenSession.getRequest().getData().get(SLIM_POM_DATA_KEY));
+
         File tmpPomFile = new File(project.getBuild().getDirectory(), "git_pom.xml");
         tmpPomFile.getParentFile().mkdirs();
 
-        ModelUtil.writeModel(project.getOriginalModel(), tmpPomFile);
+        Object pomWriteEvent = VersioningEvents.beginPomWrite();
+        ModelUtil.writeModel(replacementModel(project.getOriginalModel(), slimPom), tmpPomFile);
+        counters.incrementPomWrites();
+        VersioningEvents.commitPomWrite(pomWriteEvent, GAV.of(project), tmpPomFile);
 
         logger.debug(project.getArtifact() + " temporary override pom file with " + tmpPomFile);
 
@@ -0,0 +1,137 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Cheap detection of uncommitted changes to tracked files.
+ * <p>
+ * In contrast to a full status, file contents are only hashed if the index stat data (size, modification time)
+ * does not match the work tree file. Untracked files are ignored and the walk stops as soon as the result is known.
+ */
+public class WorkTreeDirtyCheck {
+
+    private static final int HEAD_TREE = 0;
+    private static final int INDEX_TREE = 1;
+    private static final int WORK_TREE = 2;
+
+    /**
+     * @param repository repository
+     * @param path       directory relative to the work tree to restrict the check to, empty path checks whole work tree
+     * @return true if any tracked file within path is modified, staged or deleted
+     * @throws IOException if repository access fails
+     */
+    public static boolean isDirty(Repository repository, String path) throws IOException {
+        return !getDirtyModulePaths(repository, Collections.singleton(path)).isEmpty();
+    }
+
+    /**
+     * Single walk over given module directories, e.g. to check all reactor modules without a walk per module.
+     * The walk stops as soon as all module directories are known to be dirty.
+     *
+     * @param repository  repository
+     * @param modulePaths module directories relative to the work tree, empty path represents whole work tree
+     * @return module directories containing any modified, staged or deleted tracked file
+     * @throws IOException if repository access fails
+     */
+    public static Set<String> getDirtyModulePaths(Repository repository, Set<String> modulePaths) throws IOException {
+
+        Set<String> dirtyModulePaths = new HashSet<>();
+        if (modulePaths.isEmpty()) {
+            return dirtyModulePaths;
+        }
+
+        Set<String> remainingModulePaths = new HashSet<>(modulePaths);
+        try (RevWalk revWalk = new RevWalk(repository);
+             TreeWalk treeWalk = new TreeWalk(repository)) {
+
+            ObjectId head = repository.resolve(Constants.HEAD);
+            if (head != null) {
+                treeWalk.addTree(revWalk.parseCommit(head).getTree());
+            } else {
+                treeWalk.addTree(new EmptyTreeIterator());
+            }
+            treeWalk.addTree(new DirCacheIterator(repository.readDirCache()));
+            FileTreeIterator workTreeIterator = new FileTreeIterator(repository);
+            treeWalk.addTree(workTreeIterator);
+            workTreeIterator.setDirCacheIterator(treeWalk, INDEX_TREE);
+
+            if (!modulePaths.contains("")) {
+                treeWalk.setFilter(PathFilterGroup.createFromStrings(modulePaths));
+            }
+
+            while (!remainingModulePaths.isEmpty() && treeWalk.next()) {
+                boolean tracked = treeWalk.getRawMode(HEAD_TREE) != 0 || treeWalk.getRawMode(INDEX_TREE) != 0;
+                if (!tracked) {
+                    // skip untracked files and directories
+                    continue;
+                }
+
+                if (treeWalk.isSubtree()) {
+                    treeWalk.enterSubtree();
+                    continue;
+                }
+
+                if (isDirty(treeWalk)) {
+                    // mark all remaining module directories containing the dirty file
+                    String directory = treeWalk.getPathString();
+                    do {
+                        int separatorIndex = directory.lastIndexOf('/');
+                        directory = separatorIndex >= 0 ? directory.substring(0, separatorIndex) : "";
+                        if (remainingModulePaths.remove(directory)) {
+                            dirtyModulePaths.add(directory);
+                        }
+                    } while (!directory.isEmpty());
+                }
+            }
+        }
+
+        return dirtyModulePaths;
+    }
+
+    private static boolean isDirty(TreeWalk treeWalk) throws IOException {
+        if (isStaged(treeWalk)) {
+            return true;
+        }
+
+        DirCacheIterator indexIterator = treeWalk.getTree(INDEX_TREE, DirCacheIterator.class);
+        if (indexIterator == null) {
+            // deleted from index, but still part of HEAD
+            return true;
+        }
+
+        DirCacheEntry indexEntry = indexIterator.getDirCacheEntry();
+        if (indexEntry.getFileMode() == FileMode.GITLINK || indexEntry.isAssumeValid()) {
+            return false;
+        }
+
+        WorkingTreeIterator workingTreeIterator = treeWalk.getTree(WORK_TREE, WorkingTreeIterator.class);
+        if (workingTreeIterator == null) {
+            // deleted from work tree
+            return true;
+        }
+
+        // content is only checked if stat data differs from index entry
+        return workingTreeIterator.isModified(indexEntry, true, treeWalk.getObjectReader());
+    }
+
+    private static boolean isStaged(TreeWalk treeWalk) {
+        return treeWalk.getRawMode(HEAD_TREE) != treeWalk.getRawMode(INDEX_TREE)
+                || !treeWalk.idEqual(HEAD_TREE, INDEX_TREE);
+    }
+}
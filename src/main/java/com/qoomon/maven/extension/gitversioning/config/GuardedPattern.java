@@ -0,0 +1,275 @@
+package com.qoomon.maven.extension.gitversioning.config;
+
+import java.util.regex.Pattern;
+
+/**
+ * Regular expression guarded against catastrophic backtracking.
+ * <p>
+ * Patterns within a vetted subset, where RE2/J matches exactly like {@link java.util.regex}, are matched by the
+ * linear time RE2/J engine, see {@link #isLinearSubset(String)}. All other patterns, and inputs containing line terminators,
+ * are matched by {@link java.util.regex} with a per match step limit,
+ * exceeding the limit fails the match with an {@link IllegalStateException} instead of burning CPU.
+ */
+public class GuardedPattern {
+
+    private final String regex;
+
+    private final com.google.re2j.Pattern linearPattern;
+
+    private final Pattern backtrackingPattern;
+
+    private final long stepLimit;
+
+    private GuardedPattern(String regex, com.google.re2j.Pattern linearPattern, Pattern backtrackingPattern, long stepLimit) {
+        this.regex = regex;
+        this.linearPattern = linearPattern;
+        this.backtrackingPattern = backtrackingPattern;
+        this.stepLimit = stepLimit;
+    }
+
+    /**
+     * @param regex     regular expression in {@link java.util.regex} syntax
+     * @param stepLimit max number of character accesses per match, if pattern can not be matched in linear time
+     * @return compiled pattern
+     * @throws java.util.regex.PatternSyntaxException if regex is invalid
+     */
+    public static GuardedPattern compile(String regex, long stepLimit) {
+        Pattern backtrackingPattern = Pattern.compile(regex);
+        com.google.re2j.Pattern linearPattern = null;
+        if (isLinearSubset(regex)) {
+            try {
+                linearPattern = com.google.re2j.Pattern.compile(regex);
+            } catch (com.google.re2j.PatternSyntaxException e) {
+                // e.g. repetition count exceeds RE2 limit
+                linearPattern = null;
+            }
+        }
+        return new GuardedPattern(regex, linearPattern, backtrackingPattern, stepLimit);
+    }
+
+    /**
+     * Conservative check for constructs matched the same way by RE2/J and {@link java.util.regex}:
+     * literals, escaped punctuation, {@code \d \D \w \W}, {@code . ^ $ |}, groups {@code (...)} and {@code (?:...)},
+     * greedy and lazy quantifiers including counted repetitions and simple character classes with ranges.
+     * <p>
+     * Rejects e.g. POSIX bracket classes, nested classes and intersections ({@code [[:alpha:]] [a-z&&[^e]]}),
+     * {@code \p{..}}, {@code \s}, {@code \b}, {@code \Q..\E}, embedded flags, lookarounds, named groups,
+     * possessive quantifiers and backreferences.
+     *
+     * @param regex valid regular expression in {@link java.util.regex} syntax
+     * @return true if regex is within the subset
+     */
+    static boolean isLinearSubset(String regex) {
+        int index = 0;
+        boolean quantifiable = false;
+        while (index < regex.length()) {
+            char c = regex.charAt(index);
+            switch (c) {
+                case '\\':
+                    if (!isLinearSubsetEscape(regex, index)) {
+                        return false;
+                    }
+                    index += 2;
+                    quantifiable = true;
+                    break;
+                case '[':
+                    index = skipLinearSubsetCharacterClass(regex, index);
+                    if (index < 0) {
+                        return false;
+                    }
+                    quantifiable = true;
+                    break;
+                case '(':
+                    if (regex.startsWith("(?", index)) {
+                        if (!regex.startsWith("(?:", index)) {
+                            return false;
+                        }
+                        index += 3;
+                    } else {
+                        index++;
+                    }
+                    quantifiable = false;
+                    break;
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                    if (!quantifiable) {
+                        return false;
+                    }
+                    index = c == '{' ? skipCountedRepetition(regex, index) : index + 1;
+                    if (index < 0) {
+                        return false;
+                    }
+                    if (index < regex.length() && regex.charAt(index) == '?') {
+                        index++; // lazy
+                    }
+                    if (index < regex.length() && "*+?{".indexOf(regex.charAt(index)) >= 0) {
+                        return false; // possessive or nested quantifier
+                    }
+                    quantifiable = false;
+                    break;
+                case '|':
+                case '^':
+                case '$':
+                    index++;
+                    quantifiable = false;
+                    break;
+                default:
+                    // literal, '.' and ')'
+                    index++;
+                    quantifiable = true;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLinearSubsetEscape(String regex, int index) {
+        if (index + 1 >= regex.length()) {
+            return false;
+        }
+        char escaped = regex.charAt(index + 1);
+        return "dDwW".indexOf(escaped) >= 0
+                || (escaped < 128 && !Character.isLetterOrDigit(escaped) && !Character.isWhitespace(escaped));
+    }
+
+    /**
+     * @return index after character class or -1 if character class is not within linear subset
+     */
+    private static int skipLinearSubsetCharacterClass(String regex, int index) {
+        index++;
+        if (index < regex.length() && regex.charAt(index) == '^') {
+            index++;
+        }
+        if (index < regex.length() && regex.charAt(index) == ']') {
+            return -1; // leading ']' is a literal for RE2, but not for java.util.regex
+        }
+        while (index < regex.length()) {
+            char c = regex.charAt(index);
+            if (c == ']') {
+                return index + 1;
+            }
+            if (c == '[' || regex.startsWith("&&", index)) {
+                return -1;
+            }
+            if (c == '\\') {
+                if (!isLinearSubsetEscape(regex, index)) {
+                    return -1;
+                }
+                index += 2;
+            } else {
+                index++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return index after counted repetition like {@code {n}}, {@code {n,}} or {@code {n,m}} or -1 if malformed
+     */
+    private static int skipCountedRepetition(String regex, int index) {
+        int end = regex.indexOf('}', index);
+        if (end < 0 || !regex.substring(index + 1, end).matches("[0-9]+(,[0-9]*)?")) {
+            return -1;
+        }
+        return end + 1;
+    }
+
+    /**
+     * @return true if pattern is matched in linear time
+     */
+    public boolean isLinear() {
+        return linearPattern != null;
+    }
+
+    /**
+     * @param input input
+     * @return true if the entire input matches pattern, like {@link String#matches(String)}
+     */
+    public boolean matches(String input) {
+        if (linearPattern != null && !containsLineTerminator(input)) {
+            return linearPattern.matcher(input).matches();
+        }
+        return backtrackingPattern.matcher(new StepLimitedCharSequence(input, new StepCounter(input))).matches();
+    }
+
+    /**
+     * @param input input
+     * @return input with first match of pattern removed, like {@link String#replaceFirst(String, String)} with empty replacement
+     */
+    public String removeFirst(String input) {
+        if (linearPattern != null && !containsLineTerminator(input)) {
+            return linearPattern.matcher(input).replaceFirst("");
+        }
+        return backtrackingPattern.matcher(new StepLimitedCharSequence(input, new StepCounter(input))).replaceFirst("");
+    }
+
+    @Override
+    public String toString() {
+        return regex;
+    }
+
+    /**
+     * {@code .} and {@code $} treat line terminators differently in RE2/J and {@link java.util.regex}
+     */
+    private static boolean containsLineTerminator(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class StepCounter {
+
+        private final String input;
+
+        private long steps = 0;
+
+        StepCounter(String input) {
+            this.input = input;
+        }
+
+        void step() {
+            if (++steps > stepLimit) {
+                throw new IllegalStateException("Pattern '" + regex + "' exceeded match step limit of " + stepLimit
+                        + " on input '" + input + "'. Simplify pattern or increase <patternMatchStepLimit>.");
+            }
+        }
+    }
+
+    private static class StepLimitedCharSequence implements CharSequence {
+
+        private final CharSequence value;
+
+        private final StepCounter stepCounter;
+
+        StepLimitedCharSequence(CharSequence value, StepCounter stepCounter) {
+            this.value = value;
+            this.stepCounter = stepCounter;
+        }
+
+        @Override
+        public int length() {
+            return value.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            stepCounter.step();
+            return value.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new StepLimitedCharSequence(value.subSequence(start, end), stepCounter);
+        }
+
+        @Override
+        public String toString() {
+            return value.toString();
+        }
+    }
+}
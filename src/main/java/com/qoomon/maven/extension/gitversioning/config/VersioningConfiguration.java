@@ -1,8 +1,12 @@
 package com.qoomon.maven.extension.gitversioning.config;
 
 import com.qoomon.maven.extension.gitversioning.config.model.VersionFormatDescription;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by qoomon on 30/11/2016.
@@ -11,12 +15,29 @@ public class VersioningConfiguration {
 
     private final List<VersionFormatDescription> branchVersionDescriptions;
     private final List<VersionFormatDescription> tagVersionDescriptions;
+    private final DirtyScope dirtyScope;
+    private final List<String> detachedHeadBranchPreferences;
+    private final long patternMatchStepLimit;
+    private final Optional<WindowCacheConfig> windowCacheConfig;
+    private final boolean slimPom;
+
+    private final Map<String, GuardedPattern> patterns = new ConcurrentHashMap<>();
 
     public VersioningConfiguration(List<VersionFormatDescription> branchVersionDescriptions,
-                                   List<VersionFormatDescription> tagVersionDescriptions
+                                   List<VersionFormatDescription> tagVersionDescriptions,
+                                   DirtyScope dirtyScope,
+                                   List<String> detachedHeadBranchPreferences,
+                                   long patternMatchStepLimit,
+                                   Optional<WindowCacheConfig> windowCacheConfig,
+                                   boolean slimPom
     ) {
         this.branchVersionDescriptions = branchVersionDescriptions;
         this.tagVersionDescriptions = tagVersionDescriptions;
+        this.dirtyScope = dirtyScope;
+        this.detachedHeadBranchPreferences = detachedHeadBranchPreferences;
+        this.patternMatchStepLimit = patternMatchStepLimit;
+        this.windowCacheConfig = windowCacheConfig;
+        this.slimPom = slimPom;
     }
 
     public List<VersionFormatDescription> getBranchVersionDescriptions() {
@@ -26,4 +47,55 @@ public class VersioningConfiguration {
     public List<VersionFormatDescription> getTagVersionDescriptions() {
         return tagVersionDescriptions;
     }
+
+    public DirtyScope getDirtyScope() {
+        return dirtyScope;
+    }
+
+    /**
+     * @return branch name patterns in order of preference, used to choose between multiple branches pointing to a detached HEAD
+     */
+    public List<String> getDetachedHeadBranchPreferences() {
+        return detachedHeadBranchPreferences;
+    }
+
+    public long getPatternMatchStepLimit() {
+        return patternMatchStepLimit;
+    }
+
+    /**
+     * @return JGit pack storage settings, empty if not configured to keep JGit defaults
+     */
+    public Optional<WindowCacheConfig> getWindowCacheConfig() {
+        return windowCacheConfig;
+    }
+
+    /**
+     * @return true if generated pom should be reduced to consumer relevant elements
+     */
+    public boolean isSlimPom() {
+        return slimPom;
+    }
+
+    /**
+     * @param regex pattern or prefix of this configuration
+     * @return compiled guarded pattern, compiled once per regex
+     */
+    public GuardedPattern pattern(String regex) {
+        return patterns.computeIfAbsent(regex, key -> GuardedPattern.compile(key, patternMatchStepLimit));
+    }
+
+    /**
+     * Work tree area that is checked for modifications to resolve ${dirty} placeholder.
+     */
+    public enum DirtyScope {
+        /**
+         * whole work tree
+         */
+        REPOSITORY,
+        /**
+         * module directory only
+         */
+        MODULE
+    }
 }
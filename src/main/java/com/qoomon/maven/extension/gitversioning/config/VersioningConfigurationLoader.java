@@ -0,0 +1,327 @@
+package com.qoomon.maven.extension.gitversioning.config;
+
+import com.qoomon.maven.extension.gitversioning.config.model.Configuration;
+import com.qoomon.maven.extension.gitversioning.config.model.Storage;
+import com.qoomon.maven.extension.gitversioning.config.model.VersionFormatDescription;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Loads {@link VersioningConfiguration} from config file.
+ * <p>
+ * Does not depend on maven or any xml binding library, so it can be used by {@link com.qoomon.maven.extension.gitversioning.App} as well.
+ */
+public class VersioningConfigurationLoader {
+
+    private static final VersionFormatDescription DEFAULT_BRANCH_VERSION_DESCRIPTION = defaultVersionDescription();
+
+    private static final long DEFAULT_PATTERN_MATCH_STEP_LIMIT = 1_000_000;
+
+    /**
+     * @param configFile config file, default configuration is applied if file does not exist
+     * @return configuration
+     * @throws IOException if config file can not be read or is invalid
+     */
+    public static VersioningConfiguration load(File configFile) throws IOException {
+
+        List<VersionFormatDescription> branchVersionDescriptions = new LinkedList<>();
+        List<VersionFormatDescription> tagVersionDescriptions = new LinkedList<>();
+        VersioningConfiguration.DirtyScope dirtyScope = VersioningConfiguration.DirtyScope.REPOSITORY;
+        List<String> detachedHeadBranchPreferences = new LinkedList<>();
+        long patternMatchStepLimit = DEFAULT_PATTERN_MATCH_STEP_LIMIT;
+        Optional<WindowCacheConfig> windowCacheConfig = Optional.empty();
+        boolean slimPom = false;
+
+        if (configFile.exists()) {
+            Configuration configurationModel = read(configFile);
+            branchVersionDescriptions.addAll(configurationModel.branches);
+            tagVersionDescriptions.addAll(configurationModel.tags);
+            dirtyScope = parseDirtyScope(configurationModel.dirtyScope, configFile);
+            detachedHeadBranchPreferences.addAll(configurationModel.detachedHeadBranchPreferences);
+            patternMatchStepLimit = parsePatternMatchStepLimit(configurationModel.patternMatchStepLimit, configFile);
+            if (configurationModel.storage != null) {
+                windowCacheConfig = Optional.of(parseStorage(configurationModel.storage, configFile));
+            }
+            slimPom = parseBoolean("slimPom", configurationModel.slimPom, configFile);
+        }
+
+        branchVersionDescriptions.add(DEFAULT_BRANCH_VERSION_DESCRIPTION);
+
+        VersioningConfiguration configuration = new VersioningConfiguration(branchVersionDescriptions, tagVersionDescriptions, dirtyScope,
+                detachedHeadBranchPreferences, patternMatchStepLimit, windowCacheConfig, slimPom);
+        validatePatterns(configuration, configFile);
+        return configuration;
+    }
+
+    /**
+     * Compile all patterns up front, to fail on invalid patterns before any git operation
+     */
+    private static void validatePatterns(VersioningConfiguration configuration, File configFile) {
+        List<String> patterns = new LinkedList<>();
+        for (VersionFormatDescription versionFormatDescription : configuration.getBranchVersionDescriptions()) {
+            patterns.add(versionFormatDescription.pattern);
+            patterns.add(versionFormatDescription.prefix);
+        }
+        for (VersionFormatDescription versionFormatDescription : configuration.getTagVersionDescriptions()) {
+            patterns.add(versionFormatDescription.pattern);
+            patterns.add(versionFormatDescription.prefix);
+        }
+        patterns.addAll(configuration.getDetachedHeadBranchPreferences());
+
+        for (String pattern : patterns) {
+            try {
+                configuration.pattern(pattern);
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException(configFile + ": Invalid pattern '" + pattern + "'. " + e.getDescription(), e);
+            }
+        }
+    }
+
+    private static long parsePatternMatchStepLimit(String patternMatchStepLimit, File configFile) {
+        try {
+            long value = Long.parseLong(patternMatchStepLimit.trim());
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+        throw new IllegalArgumentException(configFile + ": Invalid patternMatchStepLimit '" + patternMatchStepLimit + "', expected positive number.");
+    }
+
+    /**
+     * Unset values keep JGit defaults. Values are validated up front, because JGit rejects invalid values
+     * not before first repository access.
+     */
+    private static WindowCacheConfig parseStorage(Storage storage, File configFile) {
+        WindowCacheConfig windowCacheConfig = new WindowCacheConfig();
+        if (storage.packedGitWindowSize != null) {
+            int packedGitWindowSize = (int) parseSize("packedGitWindowSize", storage.packedGitWindowSize, Integer.MAX_VALUE, configFile);
+            if (packedGitWindowSize < 4 * WindowCacheConfig.KB || Integer.bitCount(packedGitWindowSize) != 1) {
+                throw new IllegalArgumentException(configFile + ": Invalid storage packedGitWindowSize '" + storage.packedGitWindowSize
+                        + "', expected power of 2 and at least 4k.");
+            }
+            windowCacheConfig.setPackedGitWindowSize(packedGitWindowSize);
+        }
+        if (storage.packedGitLimit != null) {
+            windowCacheConfig.setPackedGitLimit(parseSize("packedGitLimit", storage.packedGitLimit, Long.MAX_VALUE, configFile));
+        }
+        if (storage.packedGitMMAP != null) {
+            windowCacheConfig.setPackedGitMMAP(Boolean.parseBoolean(storage.packedGitMMAP.trim()));
+        }
+        if (storage.packedGitOpenFiles != null) {
+            windowCacheConfig.setPackedGitOpenFiles((int) parseSize("packedGitOpenFiles", storage.packedGitOpenFiles, Integer.MAX_VALUE, configFile));
+        }
+        if (storage.deltaBaseCacheLimit != null) {
+            windowCacheConfig.setDeltaBaseCacheLimit((int) parseSize("deltaBaseCacheLimit", storage.deltaBaseCacheLimit, Integer.MAX_VALUE, configFile));
+        }
+        if (storage.streamFileThreshold != null) {
+            windowCacheConfig.setStreamFileThreshold((int) parseSize("streamFileThreshold", storage.streamFileThreshold, Integer.MAX_VALUE, configFile));
+        }
+        if (windowCacheConfig.getPackedGitLimit() < windowCacheConfig.getPackedGitWindowSize()) {
+            throw new IllegalArgumentException(configFile + ": Invalid storage packedGitLimit '" + windowCacheConfig.getPackedGitLimit()
+                    + "', expected at least packedGitWindowSize '" + windowCacheConfig.getPackedGitWindowSize() + "'.");
+        }
+        return windowCacheConfig;
+    }
+
+    /**
+     * @param value positive number with optional git config unit suffix 'k', 'm' or 'g', e.g. '8k'
+     */
+    private static long parseSize(String name, String value, long maxValue, File configFile) {
+        String size = value.trim().toLowerCase();
+        long unit = 1;
+        if (size.endsWith("k")) {
+            unit = WindowCacheConfig.KB;
+        } else if (size.endsWith("m")) {
+            unit = WindowCacheConfig.MB;
+        } else if (size.endsWith("g")) {
+            unit = 1024L * WindowCacheConfig.MB;
+        }
+        if (unit > 1) {
+            size = size.substring(0, size.length() - 1);
+        }
+        try {
+            long result = Long.parseLong(size);
+            if (result > 0 && result <= maxValue / unit) {
+                return result * unit;
+            }
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+        throw new IllegalArgumentException(configFile + ": Invalid storage " + name + " '" + value + "', expected positive size e.g. '8k', '10m' or '1g'.");
+    }
+
+    private static boolean parseBoolean(String name, String value, File configFile) {
+        switch (value.trim()) {
+            case "true":
+                return true;
+            case "false":
+                return false;
+            default:
+                throw new IllegalArgumentException(configFile + ": Invalid " + name + " '" + value + "', expected 'true' or 'false'.");
+        }
+    }
+
+    private static VersionFormatDescription defaultVersionDescription() {
+        VersionFormatDescription result = new VersionFormatDescription();
+        result.pattern = ".*";
+        result.versionFormat = "${branch}-SNAPSHOT";
+        return result;
+    }
+
+    private static VersioningConfiguration.DirtyScope parseDirtyScope(String dirtyScope, File configFile) {
+        for (VersioningConfiguration.DirtyScope scope : VersioningConfiguration.DirtyScope.values()) {
+            if (scope.name().equalsIgnoreCase(dirtyScope.trim())) {
+                return scope;
+            }
+        }
+        throw new IllegalArgumentException(configFile + ": Invalid dirtyScope '" + dirtyScope + "', expected 'repository' or 'module'.");
+    }
+
+    static Configuration read(File configFile) throws IOException {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        try (InputStream inputStream = new FileInputStream(configFile)) {
+            XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(inputStream);
+            try {
+                reader.nextTag();
+                requireElement(reader, "configuration");
+                return readConfiguration(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(configFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Configuration readConfiguration(XMLStreamReader reader) throws XMLStreamException {
+        Configuration configuration = new Configuration();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "branches":
+                    configuration.branches = readVersionFormatDescriptions(reader);
+                    break;
+                case "tags":
+                    configuration.tags = readVersionFormatDescriptions(reader);
+                    break;
+                case "dirtyScope":
+                    configuration.dirtyScope = reader.getElementText();
+                    break;
+                case "detachedHeadBranchPreferences":
+                    configuration.detachedHeadBranchPreferences = readPatterns(reader);
+                    break;
+                case "patternMatchStepLimit":
+                    configuration.patternMatchStepLimit = reader.getElementText();
+                    break;
+                case "storage":
+                    configuration.storage = readStorage(reader);
+                    break;
+                case "slimPom":
+                    configuration.slimPom = reader.getElementText();
+                    break;
+                default:
+                    throw unexpectedElement(reader);
+            }
+        }
+        return configuration;
+    }
+
+    private static List<VersionFormatDescription> readVersionFormatDescriptions(XMLStreamReader reader) throws XMLStreamException {
+        List<VersionFormatDescription> versionFormatDescriptions = new LinkedList<>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            versionFormatDescriptions.add(readVersionFormatDescription(reader));
+        }
+        return versionFormatDescriptions;
+    }
+
+    private static List<String> readPatterns(XMLStreamReader reader) throws XMLStreamException {
+        List<String> patterns = new LinkedList<>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            requireElement(reader, "pattern");
+            patterns.add(reader.getElementText());
+        }
+        return patterns;
+    }
+
+    private static Storage readStorage(XMLStreamReader reader) throws XMLStreamException {
+        Storage storage = new Storage();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "packedGitWindowSize":
+                    storage.packedGitWindowSize = reader.getElementText();
+                    break;
+                case "packedGitLimit":
+                    storage.packedGitLimit = reader.getElementText();
+                    break;
+                case "packedGitMMAP":
+                    storage.packedGitMMAP = reader.getElementText();
+                    break;
+                case "packedGitOpenFiles":
+                    storage.packedGitOpenFiles = reader.getElementText();
+                    break;
+                case "deltaBaseCacheLimit":
+                    storage.deltaBaseCacheLimit = reader.getElementText();
+                    break;
+                case "streamFileThreshold":
+                    storage.streamFileThreshold = reader.getElementText();
+                    break;
+                default:
+                    throw unexpectedElement(reader);
+            }
+        }
+        return storage;
+    }
+
+    private static VersionFormatDescription readVersionFormatDescription(XMLStreamReader reader) throws XMLStreamException {
+        String elementName = reader.getLocalName();
+        VersionFormatDescription versionFormatDescription = new VersionFormatDescription();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "pattern":
+                    versionFormatDescription.pattern = reader.getElementText();
+                    break;
+                case "prefix":
+                    versionFormatDescription.prefix = reader.getElementText();
+                    break;
+                case "versionFormat":
+                    versionFormatDescription.versionFormat = reader.getElementText();
+                    break;
+                default:
+                    throw unexpectedElement(reader);
+            }
+        }
+        if (versionFormatDescription.pattern == null) {
+            throw new XMLStreamException("Missing element 'pattern' in '" + elementName + "'", reader.getLocation());
+        }
+        if (versionFormatDescription.versionFormat == null) {
+            throw new XMLStreamException("Missing element 'versionFormat' in '" + elementName + "'", reader.getLocation());
+        }
+        return versionFormatDescription;
+    }
+
+    private static void requireElement(XMLStreamReader reader, String name) throws XMLStreamException {
+        if (!reader.getLocalName().equals(name)) {
+            throw unexpectedElement(reader);
+        }
+    }
+
+    private static XMLStreamException unexpectedElement(XMLStreamReader reader) {
+        return new XMLStreamException("Unexpected element '" + reader.getLocalName() + "'", reader.getLocation());
+    }
+}
@@ -1,7 +1,5 @@
 package com.qoomon.maven.extension.gitversioning.config.model;
 
-import org.simpleframework.xml.ElementList;
-
 import java.util.LinkedList;
 import java.util.List;
 
@@ -10,10 +8,18 @@ import java.util.List;
  */
 public class Configuration {
 
-    @ElementList(type = VersionFormatDescription.class)
     public List<VersionFormatDescription> branches = new LinkedList<>();
 
-    @ElementList(type = VersionFormatDescription.class)
     public List<VersionFormatDescription> tags = new LinkedList<>();
 
+    public String dirtyScope = "repository";
+
+    public List<String> detachedHeadBranchPreferences = new LinkedList<>();
+
+    public String patternMatchStepLimit = "1000000";
+
+    public Storage storage;
+
+    public String slimPom = "false";
+
 }
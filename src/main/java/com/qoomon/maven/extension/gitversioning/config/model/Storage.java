@@ -0,0 +1,21 @@
+package com.qoomon.maven.extension.gitversioning.config.model;
+
+
+/**
+ * JGit pack storage settings, unset values keep JGit defaults.
+ */
+public class Storage {
+
+    public String packedGitWindowSize;
+
+    public String packedGitLimit;
+
+    public String packedGitMMAP;
+
+    public String packedGitOpenFiles;
+
+    public String deltaBaseCacheLimit;
+
+    public String streamFileThreshold;
+
+}
@@ -0,0 +1,49 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JfrEventRecorderTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void recordEvents() throws Exception {
+        // GIVEN
+        File recordingFile = new File(tempFolder.getRoot(), "recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.qoomon.gitversioning.RepositoryOpen");
+            recording.enable("com.qoomon.gitversioning.VersionDeduction");
+            recording.start();
+
+            // WHEN
+            Object repositoryOpenEvent = VersioningEvents.beginRepositoryOpen();
+            VersioningEvents.commitRepositoryOpen(repositoryOpenEvent, "test:test:1.0.0", "/repository/.git");
+            Object deductionEvent = VersioningEvents.beginVersionDeduction();
+            VersioningEvents.commitVersionDeduction(deductionEvent, "test:test:1.0.0", "/repository/.git",
+                    new ProjectVersion("1.0.0", "0000000000000000000000000000000000000000", "master", ""), 2);
+
+            recording.stop();
+            recording.dump(recordingFile.toPath());
+        }
+
+        // THEN
+        assertThat(VersioningEvents.isAvailable()).isTrue();
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile.toPath());
+        assertThat(events).extracting(event -> event.getEventType().getName())
+                .containsExactly("com.qoomon.gitversioning.RepositoryOpen", "com.qoomon.gitversioning.VersionDeduction");
+        assertThat(events.get(0).getString("gitDir")).isEqualTo("/repository/.git");
+        assertThat(events.get(1).getString("version")).isEqualTo("1.0.0");
+        assertThat(events.get(1).getInt("headTagCount")).isEqualTo(2);
+    }
+}
@@ -0,0 +1,77 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AppTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void resolveVersions_sameAsModelProcessor() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture("maven_multi_module_project", tempFolder.newFolder());
+        initRepository(projectDir);
+
+        // WHEN
+        Map<String, String> versions = resolveVersions(projectDir);
+        BuildSimulation build = BuildSimulation.run(projectDir);
+
+        // THEN
+        assertThat(versions).containsOnlyKeys("multi-module", "multi-module-api", "multi-module-service");
+        assertThat(versions).isEqualTo(versionsByArtifactId(build));
+    }
+
+    @Test
+    public void resolveVersions_moduleCommit_sameAsModelProcessor() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture("maven_multi_module_project", tempFolder.newFolder());
+        TestRepository.writeFile(projectDir, ".mvn/maven-git-versioning-extension.xml", "<configuration>\n"
+                + "    <branches><branch><pattern>.*</pattern><versionFormat>${module.commit.short}</versionFormat></branch></branches>\n"
+                + "</configuration>\n");
+        initRepository(projectDir);
+
+        // WHEN
+        Map<String, String> versions = resolveVersions(projectDir);
+        BuildSimulation build = BuildSimulation.run(projectDir);
+
+        // THEN
+        assertThat(versions.get("multi-module-api")).isNotEqualTo(versions.get("multi-module"));
+        assertThat(versions).isEqualTo(versionsByArtifactId(build));
+    }
+
+    /**
+     * Init repository with later commits that touch service module, api module and root directory only
+     */
+    private static void initRepository(File projectDir) throws Exception {
+        try (Git git = TestRepository.init(projectDir)) {
+            TestRepository.writeFile(projectDir, "multi-module-service/src/main/java/Service.java");
+            TestRepository.commitAll(git, "service change");
+            TestRepository.writeFile(projectDir, "multi-module-api/src/main/java/Api.java");
+            TestRepository.commitAll(git, "api change");
+            TestRepository.writeFile(projectDir, "README.md");
+            TestRepository.commitAll(git, "root change");
+        }
+    }
+
+    private static Map<String, String> resolveVersions(File projectDir) throws Exception {
+        return App.resolveVersions(projectDir, true, Optional.empty(), Optional.empty(), message -> {
+        }).entrySet().stream()
+                .collect(Collectors.toMap(entry -> entry.getKey().getArtifactId(), Map.Entry::getValue));
+    }
+
+    private static Map<String, String> versionsByArtifactId(BuildSimulation build) {
+        return build.projects.stream()
+                .collect(Collectors.toMap(project -> project.model.getArtifactId(), BuildSimulation.Project::getVersion));
+    }
+}
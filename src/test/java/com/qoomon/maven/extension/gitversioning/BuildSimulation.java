@@ -0,0 +1,149 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import com.qoomon.maven.extension.gitversioning.config.VersioningConfigurationProvider;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.building.FileModelSource;
+import org.apache.maven.model.building.ModelProcessor;
+import org.apache.maven.model.io.DefaultModelReader;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.session.scope.internal.SessionScope;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Simulated maven build of a test project, without booting maven.
+ * <p>
+ * Reads project models through {@link VersioningModelProcessor} in reactor order and executes
+ * {@link VersioningPomReplacementMojo} for each project, if it has been added to the project model.
+ */
+class BuildSimulation {
+
+    final VersioningCounters counters = new VersioningCounters();
+
+    final VersioningManifest manifest = new VersioningManifest();
+
+    final List<Project> projects = new ArrayList<>();
+
+    private BuildSimulation() {
+    }
+
+    /**
+     * @param projectDir     top level project directory
+     * @param userProperties maven user properties, e.g. project.branch
+     * @param goals          requested goals
+     * @return build result
+     * @throws Exception if build fails
+     */
+    static BuildSimulation run(File projectDir, Properties userProperties, String... goals) throws Exception {
+        BuildSimulation build = new BuildSimulation();
+        Logger logger = new ConsoleLogger(Logger.LEVEL_DISABLED, "test");
+
+        MavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        request.setMultiModuleProjectDirectory(projectDir);
+        request.setUserProperties(userProperties);
+        request.setGoals(Arrays.asList(goals));
+        MavenSession session = new MavenSession(null, null, request, new DefaultMavenExecutionResult());
+
+        SessionScope sessionScope = new SessionScope();
+        sessionScope.enter();
+        try {
+            sessionScope.seed(MavenSession.class, session);
+
+            VersioningConfigurationProvider configurationProvider = new VersioningConfigurationProvider(logger, sessionScope, build.counters);
+            VersioningModelProcessor modelProcessor = new VersioningModelProcessor(logger, sessionScope, configurationProvider,
+                    build.manifest, build.counters);
+            modelProcessor.setModelReader(new DefaultModelReader());
+            VersioningPomReplacementMojo pomReplacementMojo = new VersioningPomReplacementMojo(logger, session, build.counters);
+
+            build.buildProject(new File(projectDir, "pom.xml"), modelProcessor, pomReplacementMojo, session);
+        } finally {
+            sessionScope.exit();
+        }
+        return build;
+    }
+
+    static BuildSimulation run(File projectDir, String... goals) throws Exception {
+        return run(projectDir, new Properties(), goals);
+    }
+
+    private void buildProject(File pomFile, VersioningModelProcessor modelProcessor, VersioningPomReplacementMojo pomReplacementMojo,
+                              MavenSession session) throws Exception {
+        long startTime = System.nanoTime();
+        Model model = modelProcessor.read(pomFile, Collections.singletonMap(ModelProcessor.SOURCE, new FileModelSource(pomFile)));
+        projects.add(new Project(pomFile, model, System.nanoTime() - startTime));
+
+        MavenProject project = new MavenProject(model);
+        project.setOriginalModel(model.clone());
+        project.setFile(pomFile);
+        project.getBuild().setDirectory(new File(pomFile.getParentFile(), "target").getPath());
+        session.setCurrentProject(project);
+        if (model.getBuild() != null && model.getBuild().getPluginsAsMap().containsKey(VersioningPomReplacementMojo.asPlugin().getKey())) {
+            pomReplacementMojo.execute();
+        }
+
+        for (String module : model.getModules()) {
+            buildProject(new File(pomFile.getParentFile(), module + "/pom.xml"), modelProcessor, pomReplacementMojo, session);
+        }
+    }
+
+    /**
+     * @param name      fixture directory name in src/test/resources
+     * @param targetDir directory to copy fixture to
+     * @return fixture copy
+     * @throws IOException if copy fails
+     */
+    static File copyFixture(String name, File targetDir) throws IOException {
+        Path source = new File("src/test/resources", name).toPath();
+        Path target = targetDir.toPath();
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path targetPath = target.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(targetPath);
+                } else {
+                    Files.copy(path, targetPath);
+                }
+            }
+        }
+        return targetDir;
+    }
+
+    /**
+     * Project model as provided by {@link VersioningModelProcessor}
+     */
+    static class Project {
+
+        final File pomFile;
+
+        final Model model;
+
+        /**
+         * model read duration, including version deduction of project and its parent
+         */
+        final long readNanos;
+
+        Project(File pomFile, Model model, long readNanos) {
+            this.pomFile = pomFile;
+            this.model = model;
+            this.readNanos = readNanos;
+        }
+
+        /**
+         * @return project version, inherited from parent if not declared
+         */
+        String getVersion() {
+            return model.getVersion() != null || model.getParent() == null ? model.getVersion() : model.getParent().getVersion();
+        }
+    }
+}
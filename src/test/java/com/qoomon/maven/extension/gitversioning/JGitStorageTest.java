@@ -0,0 +1,19 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JGitStorageTest {
+
+    @Test
+    public void windowCacheOccupancy() {
+        // WHEN
+        Optional<String> occupancy = JGitStorage.windowCacheOccupancy();
+
+        // THEN
+        assertThat(occupancy).hasValueSatisfying(value -> assertThat(value).contains("open pack files"));
+    }
+}
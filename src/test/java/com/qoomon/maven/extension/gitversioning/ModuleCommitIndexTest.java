@@ -0,0 +1,74 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ModuleCommitIndexTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void build() throws Exception {
+        // GIVEN
+        File workTree = tempFolder.getRoot();
+        TestRepository.writeFile(workTree, "pom.xml");
+        TestRepository.writeFile(workTree, "api/pom.xml");
+        TestRepository.writeFile(workTree, "service/pom.xml");
+        try (Git git = TestRepository.init(workTree)) {
+            RevCommit initialCommit = git.log().call().iterator().next();
+
+            TestRepository.writeFile(workTree, "api/src/App.java");
+            RevCommit apiCommit = TestRepository.commitAll(git, "api change");
+
+            TestRepository.writeFile(workTree, "README.md");
+            RevCommit rootCommit = TestRepository.commitAll(git, "root change");
+
+            // WHEN
+            ObjectId head = git.getRepository().resolve("HEAD");
+            ModuleCommitIndex moduleCommitIndex = ModuleCommitIndex.build(git.getRepository(), head,
+                    new HashSet<>(Arrays.asList("", "api", "service", "unknown")));
+
+            // THEN
+            assertThat(moduleCommitIndex.getCommit("")).contains(rootCommit);
+            assertThat(moduleCommitIndex.getCommit("api")).contains(apiCommit);
+            assertThat(moduleCommitIndex.getCommit("service")).contains(initialCommit);
+            assertThat(moduleCommitIndex.getCommit("unknown")).isEmpty();
+            assertThat(moduleCommitIndex.isIndexed("unknown")).isTrue();
+        }
+    }
+
+    @Test
+    public void build_onlyGivenModulePaths() throws Exception {
+        // GIVEN
+        File workTree = tempFolder.getRoot();
+        TestRepository.writeFile(workTree, "pom.xml");
+        TestRepository.writeFile(workTree, "api/pom.xml");
+        TestRepository.writeFile(workTree, "src/test/resources/fixture/pom.xml");
+        try (Git git = TestRepository.init(workTree)) {
+            TestRepository.writeFile(workTree, "api/src/App.java");
+            RevCommit apiCommit = TestRepository.commitAll(git, "api change");
+
+            // WHEN
+            ObjectId head = git.getRepository().resolve("HEAD");
+            ModuleCommitIndex moduleCommitIndex = ModuleCommitIndex.build(git.getRepository(), head, Collections.singleton("api"));
+
+            // THEN
+            assertThat(moduleCommitIndex.getCommit("api")).contains(apiCommit);
+            // pom files that are not part of the reactor, e.g. test fixtures, are not indexed
+            assertThat(moduleCommitIndex.isIndexed("src/test/resources/fixture")).isFalse();
+            assertThat(moduleCommitIndex.getCommit("src/test/resources/fixture")).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import com.qoomon.maven.GAV;
+import com.qoomon.maven.extension.gitversioning.config.VersioningConfiguration;
+import com.qoomon.maven.extension.gitversioning.config.model.VersionFormatDescription;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ProjectVersionDeducerTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final GAV gav = new GAV("test", "test", "1.0.0-SNAPSHOT");
+
+    @Test
+    public void deduceProjectVersion_branch() throws Exception {
+        // GIVEN
+        File workTree = tempFolder.getRoot();
+        try (Git git = initRepository(workTree)) {
+            git.checkout().setCreateBranch(true).setName("feature/next").call();
+
+            ProjectVersionDeducer deducer = deducer(Collections.emptyList());
+
+            // WHEN
+            ProjectVersion projectVersion = deducer.deduceProjectVersion(gav, workTree);
+
+            // THEN
+            assertThat(projectVersion.getVersion()).isEqualTo("feature-next-SNAPSHOT");
+            assertThat(projectVersion.getBranch()).isEqualTo("feature/next");
+        }
+    }
+
+    @Test
+    public void deduceProjectVersion_tag() throws Exception {
+        // GIVEN
+        File workTree = tempFolder.getRoot();
+        try (Git git = initRepository(workTree)) {
+            git.tag().setName("v1.0.0").call();
+            git.tag().setName("v1.1.0").setAnnotated(true).setMessage("release").call();
+
+            ProjectVersionDeducer deducer = deducer(Collections.emptyList());
+
+            // WHEN
+            ProjectVersion projectVersion = deducer.deduceProjectVersion(gav, workTree);
+
+            // THEN
+            assertThat(projectVersion.getVersion()).isEqualTo("1.1.0");
+            assertThat(projectVersion.getTag()).isEqualTo("v1.1.0");
+        }
+    }
+
+    @Test
+    public void deduceProjectVersion_detachedHead() throws Exception {
+        // GIVEN
+        File workTree = tempFolder.getRoot();
+        try (Git git = initRepository(workTree)) {
+            RevCommit head = git.log().call().iterator().next();
+            git.branchCreate().setName("feature/next").call();
+            git.checkout().setName(head.getName()).call();
+
+            // WHEN
+            ProjectVersion projectVersion = deducer(Collections.emptyList()).deduceProjectVersion(gav, workTree);
+            ProjectVersion preferredProjectVersion = deducer(Arrays.asList("release/.*", "master")).deduceProjectVersion(gav, workTree);
+
+            // THEN
+            assertThat(projectVersion.getBranch()).isEqualTo("feature/next");
+            assertThat(preferredProjectVersion.getBranch()).isEqualTo("master");
+        }
+    }
+
+    @Test
+    public void deduceProjectVersion_detachedHeadWithoutBranch() throws Exception {
+        // GIVEN
+        File workTree = tempFolder.getRoot();
+        try (Git git = initRepository(workTree)) {
+            RevCommit head = git.log().call().iterator().next();
+            TestRepository.writeFile(workTree, "next.txt");
+            TestRepository.commitAll(git, "next");
+            git.checkout().setName(head.getName()).call();
+            git.branchDelete().setBranchNames("master").setForce(true).call();
+
+            ProjectVersionDeducer deducer = deducer(Collections.emptyList());
+
+            // WHEN / THEN
+            assertThatThrownBy(() -> deducer.deduceProjectVersion(gav, workTree))
+                    .hasMessageContaining("No Branch Name provided in Detached HEAD state");
+        }
+    }
+
+    @Test
+    public void prepare_multipleRepositories() throws Exception {
+        // GIVEN
+        File repositoryA = tempFolder.newFolder("a");
+        File repositoryB = tempFolder.newFolder("b");
+        File repositoryC = tempFolder.newFolder("c");
+        try (Git gitA = initRepository(repositoryA); Git gitB = initRepository(repositoryB); Git gitC = initRepository(repositoryC)) {
+            gitB.tag().setName("v2.0.0").setAnnotated(true).setMessage("release").call();
+            gitC.checkout().setCreateBranch(true).setName("feature/next").call();
+        }
+        File moduleA = new File(repositoryA, "module");
+        TestRepository.writeFile(moduleA, "pom.xml");
+
+        VersioningCounters counters = new VersioningCounters();
+        ProjectVersionDeducer deducer = deducer(Collections.emptyList(), counters);
+
+        // WHEN
+        deducer.prepare(Arrays.asList(repositoryA, moduleA, repositoryB, repositoryC), 3);
+        ProjectVersion projectVersionA = deducer.deduceProjectVersion(gav, repositoryA);
+        ProjectVersion projectVersionModuleA = deducer.deduceProjectVersion(gav, moduleA);
+        ProjectVersion projectVersionB = deducer.deduceProjectVersion(gav, repositoryB);
+        ProjectVersion projectVersionC = deducer.deduceProjectVersion(gav, repositoryC);
+
+        // THEN
+        assertThat(projectVersionA.getVersion()).isEqualTo("master-SNAPSHOT");
+        assertThat(projectVersionModuleA.getVersion()).isEqualTo("master-SNAPSHOT");
+        assertThat(projectVersionB.getVersion()).isEqualTo("2.0.0");
+        assertThat(projectVersionC.getVersion()).isEqualTo("feature-next-SNAPSHOT");
+        // each repository opened once by prepare, deductions served from results
+        assertThat(counters.getRepositoryOpens()).isEqualTo(3);
+    }
+
+    @Test
+    public void deduceProjectVersion_moduleCommit() throws Exception {
+        // GIVEN
+        File workTree = tempFolder.getRoot();
+        File apiDir = new File(workTree, "api");
+        File serviceDir = new File(workTree, "service");
+        TestRepository.writeFile(apiDir, "pom.xml");
+        TestRepository.writeFile(serviceDir, "pom.xml");
+        try (Git git = initRepository(workTree)) {
+            RevCommit initialCommit = git.log().call().iterator().next();
+            TestRepository.writeFile(apiDir, "src/App.java");
+            RevCommit apiCommit = TestRepository.commitAll(git, "api change");
+
+            VersioningCounters counters = new VersioningCounters();
+            ProjectVersionDeducer deducer = deducer("${module.commit}", Collections.emptyList(), counters);
+
+            // WHEN
+            deducer.prepare(Arrays.asList(workTree, apiDir), 1);
+            ProjectVersion rootProjectVersion = deducer.deduceProjectVersion(gav, workTree);
+            ProjectVersion apiProjectVersion = deducer.deduceProjectVersion(gav, apiDir);
+            long preparedRepositoryOpens = counters.getRepositoryOpens();
+            ProjectVersion serviceProjectVersion = deducer.deduceProjectVersion(gav, serviceDir);
+
+            // THEN
+            assertThat(deducer.isModuleScoped()).isTrue();
+            assertThat(rootProjectVersion.getVersion()).isEqualTo(apiCommit.getName());
+            assertThat(apiProjectVersion.getVersion()).isEqualTo(apiCommit.getName());
+            assertThat(preparedRepositoryOpens).isEqualTo(1);
+            // not registered by prepare, resolved on demand
+            assertThat(serviceProjectVersion.getVersion()).isEqualTo(initialCommit.getName());
+            assertThat(counters.getRepositoryOpens()).isEqualTo(2);
+        }
+    }
+
+    private static ProjectVersionDeducer deducer(List<String> detachedHeadBranchPreferences) {
+        return deducer(detachedHeadBranchPreferences, new VersioningCounters());
+    }
+
+    private static ProjectVersionDeducer deducer(List<String> detachedHeadBranchPreferences, VersioningCounters counters) {
+        return deducer("${branch}-SNAPSHOT", detachedHeadBranchPreferences, counters);
+    }
+
+    private static ProjectVersionDeducer deducer(String branchVersionFormat, List<String> detachedHeadBranchPreferences,
+                                                 VersioningCounters counters) {
+        VersionFormatDescription tagVersionDescription = new VersionFormatDescription();
+        tagVersionDescription.pattern = "v.*";
+        tagVersionDescription.prefix = "v";
+        tagVersionDescription.versionFormat = "${tag}";
+
+        VersionFormatDescription branchVersionDescription = new VersionFormatDescription();
+        branchVersionDescription.pattern = ".*";
+        branchVersionDescription.versionFormat = branchVersionFormat;
+
+        VersioningConfiguration configuration = new VersioningConfiguration(
+                Collections.singletonList(branchVersionDescription),
+                Collections.singletonList(tagVersionDescription),
+                VersioningConfiguration.DirtyScope.REPOSITORY,
+                detachedHeadBranchPreferences,
+                1_000_000,
+                Optional.empty(),
+                false);
+
+        return new ProjectVersionDeducer(configuration, Optional.empty(), Optional.empty(), message -> {
+        }, counters);
+    }
+
+    private static Git initRepository(File workTree) throws Exception {
+        TestRepository.writeFile(workTree, "pom.xml");
+        return TestRepository.init(workTree);
+    }
+}
@@ -0,0 +1,55 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Git repository fixtures for tests, e.g. in a {@link org.junit.rules.TemporaryFolder}.
+ */
+final class TestRepository {
+
+    private TestRepository() {
+    }
+
+    /**
+     * Init repository on master branch and commit all files of work tree.
+     *
+     * @param workTree work tree directory
+     * @return repository, to be closed by caller
+     * @throws Exception if repository creation fails
+     */
+    static Git init(File workTree) throws Exception {
+        Git git = Git.init().setDirectory(workTree).call();
+        commitAll(git, "initial");
+        return git;
+    }
+
+    /**
+     * @param git     repository
+     * @param message commit message
+     * @return commit of all work tree changes
+     * @throws Exception if commit fails
+     */
+    static RevCommit commitAll(Git git, String message) throws Exception {
+        git.add().addFilepattern(".").call();
+        return git.commit().setMessage(message).call();
+    }
+
+    /**
+     * Write file, content is file path.
+     */
+    static void writeFile(File workTree, String path) throws IOException {
+        writeFile(workTree, path, path);
+    }
+
+    static void writeFile(File workTree, String path, String content) throws IOException {
+        File file = new File(workTree, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,217 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import org.apache.maven.model.io.DefaultModelReader;
+import org.eclipse.jgit.api.Git;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Operation budgets of a whole build, based on {@link VersioningCounters}.
+ * <p>
+ * Repository opens are budgeted per repository, other budgets are linear in modules and tags,
+ * so accidental per module repository access, O(tags) or O(modules²) work fails deterministically.
+ */
+public class VersioningBudgetTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void standardProject() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture("maven_standard_project", tempFolder.newFolder());
+        initRepository(projectDir, 0);
+
+        // WHEN
+        BuildSimulation build = BuildSimulation.run(projectDir);
+
+        // THEN
+        assertThat(build.projects.size()).isEqualTo(1);
+        assertBudgets(build, 0);
+        assertThat(build.counters.getParentPomParses()).isEqualTo(0);
+    }
+
+    @Test
+    public void multiModuleProject() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture("maven_multi_module_project", tempFolder.newFolder());
+        initRepository(projectDir, 3);
+
+        // WHEN
+        BuildSimulation build = BuildSimulation.run(projectDir);
+
+        // THEN
+        assertThat(build.projects.size()).isEqualTo(3);
+        assertBudgets(build, 3);
+    }
+
+    @Test
+    public void generatedLargeMultiModuleProject() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture("maven_multi_module_project", tempFolder.newFolder());
+        generateModules(projectDir, 50);
+        initRepository(projectDir, 500);
+
+        // WHEN
+        BuildSimulation build = BuildSimulation.run(projectDir);
+
+        // THEN
+        assertThat(build.projects.size()).isEqualTo(53);
+        assertBudgets(build, 500);
+    }
+
+    @Test
+    public void generatedLargeMultiModuleProject_tagged() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture("maven_multi_module_project", tempFolder.newFolder());
+        generateModules(projectDir, 50);
+        try (Git git = initRepository(projectDir, 500)) {
+            git.tag().setName("version/2.0.0").setAnnotated(true).setMessage("release").call();
+        }
+
+        // WHEN
+        BuildSimulation build = BuildSimulation.run(projectDir);
+
+        // THEN
+        assertBudgets(build, 501);
+    }
+
+    @Test
+    public void multiModuleProject_compile() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture("maven_multi_module_project", tempFolder.newFolder());
+        initRepository(projectDir, 3);
+
+        // WHEN
+        BuildSimulation build = BuildSimulation.run(projectDir, "clean", "compile");
+
+        // THEN
+        assertThat(build.projects.size()).isEqualTo(3);
+        assertThat(build.counters.getPomWrites()).isEqualTo(0);
+        assertThat(new File(projectDir, "target/git_pom.xml")).doesNotExist();
+    }
+
+    @Test
+    public void multiModuleProject_moduleDirtyScope() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture("maven_multi_module_project", tempFolder.newFolder());
+        TestRepository.writeFile(projectDir, ".mvn/maven-git-versioning-extension.xml", "<configuration>\n"
+                + "    <dirtyScope>module</dirtyScope>\n"
+                + "    <branches><branch><pattern>.*</pattern><versionFormat>${branch}${dirty}-SNAPSHOT</versionFormat></branch></branches>\n"
+                + "</configuration>\n");
+        initRepository(projectDir, 3).close();
+        TestRepository.writeFile(projectDir, "multi-module-api/pom.xml",
+                new String(Files.readAllBytes(new File(projectDir, "multi-module-api/pom.xml").toPath()), StandardCharsets.UTF_8) + "\n");
+
+        // WHEN
+        BuildSimulation build = BuildSimulation.run(projectDir);
+
+        // THEN
+        // root module directory contains dirty api module directory
+        assertThat(build.projects).extracting(project -> project.model.getArtifactId(), BuildSimulation.Project::getVersion)
+                .containsExactly(
+                        tuple("multi-module", "master-dirty-SNAPSHOT"),
+                        tuple("multi-module-api", "master-dirty-SNAPSHOT"),
+                        tuple("multi-module-service", "master-SNAPSHOT"));
+        // module scoped versions require reactor discovery
+        assertBudgets(build, 3, build.projects.size());
+    }
+
+    @Test
+    public void generatedLargeMultiModuleProject_repositoryDiscovery() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture("maven_multi_module_project", tempFolder.newFolder());
+        generateModules(projectDir, 50);
+        initRepository(projectDir, 500).close();
+        Properties userProperties = new Properties();
+        userProperties.setProperty("gitVersioning.threads", "2");
+
+        // WHEN
+        BuildSimulation build = BuildSimulation.run(projectDir, userProperties);
+
+        // THEN
+        assertThat(build.counters.getDiscoveryPomParses()).as("discovery pom parses").isEqualTo(build.projects.size());
+        assertThat(build.counters.getRepositoryOpens()).as("repository opens").isEqualTo(1);
+        assertThat(build.counters.getTagPeels()).as("tag peels").isLessThanOrEqualTo(500);
+    }
+
+    @Test
+    public void multiModuleProject_repositoryDiscoveryOfInvalidModulePom() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture("maven_multi_module_project", tempFolder.newFolder());
+        TestRepository.writeFile(projectDir, "multi-module-service/pom.xml", "<project>");
+        initRepository(projectDir, 0).close();
+        Properties userProperties = new Properties();
+        userProperties.setProperty("gitVersioning.threads", "2");
+
+        // WHEN / THEN
+        // reported by maven model reader, not by repository discovery
+        assertThatThrownBy(() -> BuildSimulation.run(projectDir, userProperties))
+                .isInstanceOf(IOException.class)
+                .hasStackTraceContaining(DefaultModelReader.class.getName());
+    }
+
+    private static void assertBudgets(BuildSimulation build, int tags) {
+        // repository discovery is opt-in
+        assertBudgets(build, tags, 0);
+    }
+
+    private static void assertBudgets(BuildSimulation build, int tags, int discoveryPomParses) {
+        VersioningCounters counters = build.counters;
+        assertThat(counters.getConfigLoads()).as("config loads").isEqualTo(1);
+        // once per repository, also serves parent projects, module commit index and dirty checks
+        assertThat(counters.getRepositoryOpens()).as("repository opens").isEqualTo(1);
+        // each tag once per repository
+        assertThat(counters.getTagPeels()).as("tag peels").isLessThanOrEqualTo(tags);
+        assertThat(counters.getParentPomParses()).as("parent pom parses").isLessThanOrEqualTo(build.projects.size());
+        assertThat(counters.getPomWrites()).as("pom writes").isEqualTo(build.projects.size());
+        assertThat(counters.getDiscoveryPomParses()).as("discovery pom parses").isEqualTo(discoveryPomParses);
+    }
+
+    /**
+     * Add generated modules to aggregator pom of multi module fixture.
+     */
+    private static void generateModules(File projectDir, int count) throws IOException {
+        StringBuilder modules = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            String artifactId = "generated-module-" + i;
+            modules.append("        <module>").append(artifactId).append("</module>\n");
+            TestRepository.writeFile(projectDir, artifactId + "/pom.xml", "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+                    + "    <modelVersion>4.0.0</modelVersion>\n"
+                    + "    <parent>\n"
+                    + "        <groupId>test</groupId>\n"
+                    + "        <artifactId>multi-module</artifactId>\n"
+                    + "        <version>3.0-SNAPSHOT</version>\n"
+                    + "    </parent>\n"
+                    + "    <artifactId>" + artifactId + "</artifactId>\n"
+                    + "</project>\n");
+        }
+        File aggregatorPomFile = new File(projectDir, "pom.xml");
+        String aggregatorPom = new String(Files.readAllBytes(aggregatorPomFile.toPath()), StandardCharsets.UTF_8);
+        TestRepository.writeFile(projectDir, "pom.xml", aggregatorPom.replace("    </modules>", modules + "    </modules>"));
+    }
+
+    /**
+     * Init repository on master branch with annotated tags on initial commit and one more commit on top.
+     */
+    private static Git initRepository(File workTree, int tags) throws Exception {
+        Git git = TestRepository.init(workTree);
+        for (int i = 0; i < tags; i++) {
+            git.tag().setName("version/1.0." + i).setAnnotated(true).setMessage("release").call();
+        }
+        TestRepository.writeFile(workTree, "README.md", "next");
+        TestRepository.commitAll(git, "next");
+        return git;
+    }
+}
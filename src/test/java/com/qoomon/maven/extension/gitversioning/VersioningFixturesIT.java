@@ -0,0 +1,215 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import com.qoomon.maven.BuildProperties;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.AfterClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Version resolution of test fixture projects in freshly initialized repositories of different states.
+ * <p>
+ * Verifies resolved project and parent versions per module and writes per module model read durations,
+ * including version deduction, to {@value #REPORT_PATH}.
+ * Resolved versions are compared with the baseline tracked in {@value #BASELINE_PATH},
+ * durations are reported next to the baseline durations only, because they depend on the machine.
+ * Run by {@code mvn verify -P it}, update baseline by {@code mvn verify -P it -Dbaseline.update=true}.
+ */
+public class VersioningFixturesIT {
+
+    private static final String REPORT_PATH = "target/version-resolution-baseline.md";
+
+    private static final String BASELINE_PATH = "src/test/resources/version-resolution-baseline.md";
+
+    private static final String MULTI_MODULE_FIXTURE = "maven_multi_module_project";
+
+    private static final Map<String, BuildSimulation> SCENARIOS = new TreeMap<>();
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void multiModuleProject_masterBranch() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture(MULTI_MODULE_FIXTURE, tempFolder.newFolder());
+        TestRepository.init(projectDir).close();
+
+        // WHEN
+        BuildSimulation build = BuildSimulation.run(projectDir);
+
+        // THEN
+        record("master branch", build);
+        assertVersions(build, "3.0");
+    }
+
+    @Test
+    public void multiModuleProject_releaseBranch() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture(MULTI_MODULE_FIXTURE, tempFolder.newFolder());
+        try (Git git = TestRepository.init(projectDir)) {
+            git.checkout().setCreateBranch(true).setName("release/2.0").call();
+        }
+
+        // WHEN
+        BuildSimulation build = BuildSimulation.run(projectDir);
+
+        // THEN
+        record("release branch", build);
+        assertVersions(build, "2.0-SNAPSHOT");
+    }
+
+    @Test
+    public void multiModuleProject_tag() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture(MULTI_MODULE_FIXTURE, tempFolder.newFolder());
+        try (Git git = TestRepository.init(projectDir)) {
+            git.tag().setName("version/4.1.0").setAnnotated(true).setMessage("release").call();
+        }
+
+        // WHEN
+        BuildSimulation build = BuildSimulation.run(projectDir);
+
+        // THEN
+        record("tag", build);
+        assertVersions(build, "4.1.0");
+    }
+
+    @Test
+    public void multiModuleProject_detachedHeadWithBranchOverride() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture(MULTI_MODULE_FIXTURE, tempFolder.newFolder());
+        try (Git git = TestRepository.init(projectDir)) {
+            ObjectId head = git.getRepository().resolve("HEAD");
+            git.checkout().setName(head.getName()).call();
+        }
+        Properties userProperties = new Properties();
+        userProperties.setProperty("project.branch", "release/2.0");
+
+        // WHEN
+        BuildSimulation build = BuildSimulation.run(projectDir, userProperties);
+
+        // THEN
+        record("detached head with branch override", build);
+        assertVersions(build, "2.0-SNAPSHOT");
+    }
+
+    @Test
+    public void multiModuleProject_manyTags() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture(MULTI_MODULE_FIXTURE, tempFolder.newFolder());
+        try (Git git = TestRepository.init(projectDir)) {
+            for (int i = 0; i < 500; i++) {
+                git.tag().setName("version/1.0." + i).setAnnotated(true).setMessage("release").call();
+            }
+        }
+
+        // WHEN
+        BuildSimulation build = BuildSimulation.run(projectDir);
+
+        // THEN
+        record("500 tags", build);
+        assertVersions(build, "1.0.499");
+        assertThat(build.counters.getTagPeels()).isEqualTo(500);
+    }
+
+    @AfterClass
+    public static void writeReportAndCompareWithBaseline() throws Exception {
+        Map<String, List<String>> rows = new LinkedHashMap<>();
+        for (Map.Entry<String, BuildSimulation> scenario : SCENARIOS.entrySet()) {
+            for (BuildSimulation.Project project : scenario.getValue().projects) {
+                rows.put(scenario.getKey() + " | " + project.model.getArtifactId(), Arrays.asList(
+                        project.getVersion(),
+                        project.model.getParent() != null ? project.model.getParent().getVersion() : "",
+                        String.format(Locale.ROOT, "%.2f", project.readNanos / 1_000_000.0)));
+            }
+        }
+
+        File baselineFile = new File(BASELINE_PATH);
+        if (Boolean.getBoolean("baseline.update")) {
+            write(baselineFile, report(rows, Collections.emptyMap()));
+        }
+        Map<String, List<String>> baselineRows = baselineFile.exists() ? readRows(baselineFile) : Collections.emptyMap();
+        write(new File(REPORT_PATH), report(rows, baselineRows));
+
+        for (Map.Entry<String, List<String>> row : rows.entrySet()) {
+            List<String> baselineRow = baselineRows.get(row.getKey());
+            assertThat(baselineRow).as(row.getKey() + " baseline, update by -Dbaseline.update=true").isNotNull();
+            assertThat(row.getValue().subList(0, 2)).as(row.getKey() + " version and parent version")
+                    .isEqualTo(baselineRow.subList(0, 2));
+        }
+    }
+
+    private static String report(Map<String, List<String>> rows, Map<String, List<String>> baselineRows) {
+        boolean baseline = !baselineRows.isEmpty();
+        StringBuilder report = new StringBuilder()
+                .append("# Version Resolution Baseline\n\n")
+                .append("extension ").append(BuildProperties.projectVersion())
+                .append(", java ").append(System.getProperty("java.version"))
+                .append(", ").append(Runtime.getRuntime().availableProcessors()).append(" processors\n\n")
+                .append("| scenario | module | version | parent version | read and deduction ms |")
+                .append(baseline ? " baseline ms |\n" : "\n")
+                .append("|---|---|---|---|---:|")
+                .append(baseline ? "---:|\n" : "\n");
+        for (Map.Entry<String, List<String>> row : rows.entrySet()) {
+            report.append("| ").append(row.getKey());
+            for (String value : row.getValue()) {
+                report.append(" | ").append(value);
+            }
+            if (baseline) {
+                List<String> baselineRow = baselineRows.get(row.getKey());
+                report.append(" | ").append(baselineRow != null ? baselineRow.get(2) : "");
+            }
+            report.append(" |\n");
+        }
+        return report.toString();
+    }
+
+    /**
+     * @return table rows by scenario and module
+     */
+    private static Map<String, List<String>> readRows(File reportFile) throws IOException {
+        Map<String, List<String>> rows = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(reportFile.toPath(), StandardCharsets.UTF_8)) {
+            if (!line.startsWith("| ") || line.startsWith("| scenario ")) {
+                continue;
+            }
+            String[] cells = line.substring(2, line.length() - 2).split(" \\| ", -1);
+            rows.put(cells[0] + " | " + cells[1], Arrays.asList(cells[2], cells[3], cells[4]));
+        }
+        return rows;
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static synchronized void record(String scenario, BuildSimulation build) {
+        SCENARIOS.put(scenario, build);
+    }
+
+    /**
+     * Each module resolves to expected version, each child module refers to parent by expected version.
+     */
+    private static void assertVersions(BuildSimulation build, String expectedVersion) {
+        assertThat(build.projects).extracting(project -> project.model.getArtifactId())
+                .containsExactly("multi-module", "multi-module-api", "multi-module-service");
+        for (BuildSimulation.Project project : build.projects) {
+            assertThat(project.getVersion()).as(project.model.getArtifactId() + " version").isEqualTo(expectedVersion);
+            if (project.model.getParent() != null) {
+                assertThat(project.model.getParent().getVersion()).as(project.model.getArtifactId() + " parent version")
+                        .isEqualTo(expectedVersion);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import com.qoomon.maven.GAV;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VersioningManifestTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void write() throws Exception {
+        // GIVEN
+        VersioningManifest manifest = new VersioningManifest();
+        manifest.addProject(new GAV("test", "multi-module", "3.0-SNAPSHOT"),
+                "feature-\"x\"-SNAPSHOT", "feature/\"x\"", "", "0fc20459a8eceb2c4abb9bf0af45a6e8af17b94b");
+        File manifestFile = new File(tempFolder.getRoot(), "target/" + VersioningManifest.FILE_NAME);
+
+        // WHEN
+        manifest.write(manifestFile);
+
+        // THEN
+        String json = new String(Files.readAllBytes(manifestFile.toPath()), StandardCharsets.UTF_8);
+        assertThat(json)
+                .contains("\"durationMillis\": 0")
+                .contains("\"artifactId\": \"multi-module\"")
+                .contains("\"originalVersion\": \"3.0-SNAPSHOT\"")
+                .contains("\"version\": \"feature-\\\"x\\\"-SNAPSHOT\"")
+                .contains("\"branch\": \"feature/\\\"x\\\"\"")
+                .contains("\"commit\": \"0fc20459a8eceb2c4abb9bf0af45a6e8af17b94b\"");
+    }
+
+    @Test
+    public void write_effectiveVersion() throws Exception {
+        // GIVEN
+        File projectDir = tempFolder.newFolder();
+        TestRepository.writeFile(projectDir, "pom.xml", "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+                + "    <modelVersion>4.0.0</modelVersion>\n"
+                + "    <parent>\n"
+                + "        <groupId>test</groupId>\n"
+                + "        <artifactId>external-parent</artifactId>\n"
+                + "        <version>7.0</version>\n"
+                + "    </parent>\n"
+                + "    <artifactId>child</artifactId>\n"
+                + "</project>\n");
+        TestRepository.init(projectDir).close();
+        BuildSimulation build = BuildSimulation.run(projectDir);
+        File manifestFile = new File(projectDir, "target/" + VersioningManifest.FILE_NAME);
+
+        // WHEN
+        build.manifest.write(manifestFile);
+
+        // THEN
+        // version of parent that is not part of the build is not adjusted, so project keeps inherited version
+        String json = new String(Files.readAllBytes(manifestFile.toPath()), StandardCharsets.UTF_8);
+        assertThat(build.projects.get(0).getVersion()).isEqualTo("7.0");
+        assertThat(json)
+                .contains("\"artifactId\": \"child\"")
+                .contains("\"version\": \"7.0\"");
+    }
+}
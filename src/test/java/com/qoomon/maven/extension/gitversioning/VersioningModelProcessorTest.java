@@ -0,0 +1,100 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import org.apache.maven.model.Dependency;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class VersioningModelProcessorTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void multiModuleProject_moduleCommit() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture("maven_multi_module_project", tempFolder.newFolder());
+        writeConfiguration(projectDir, "${module.commit.short}");
+        RevCommit apiCommit;
+        RevCommit serviceCommit;
+        try (Git git = TestRepository.init(projectDir)) {
+            TestRepository.writeFile(projectDir, "multi-module-api/src/main/java/Api.java");
+            apiCommit = TestRepository.commitAll(git, "api change");
+            TestRepository.writeFile(projectDir, "multi-module-service/src/main/java/Service.java");
+            serviceCommit = TestRepository.commitAll(git, "service change");
+        }
+
+        // WHEN
+        BuildSimulation build = BuildSimulation.run(projectDir);
+
+        // THEN
+        Map<String, BuildSimulation.Project> projects = projectsByArtifactId(build);
+        String rootVersion = serviceCommit.getName().substring(0, 7);
+        String apiVersion = apiCommit.getName().substring(0, 7);
+        String serviceVersion = serviceCommit.getName().substring(0, 7);
+
+        assertThat(projects.get("multi-module").getVersion()).isEqualTo(rootVersion);
+        // modules without own version get their module scoped version instead of the parent version
+        assertThat(projects.get("multi-module-api").getVersion()).isEqualTo(apiVersion);
+        assertThat(projects.get("multi-module-api").model.getParent().getVersion()).isEqualTo(rootVersion);
+        assertThat(projects.get("multi-module-service").getVersion()).isEqualTo(serviceVersion);
+        assertThat(projects.get("multi-module-service").model.getParent().getVersion()).isEqualTo(rootVersion);
+        // ${project.version} references to reactor projects resolve to their module scoped version
+        assertThat(projects.get("multi-module").model.getDependencyManagement().getDependencies())
+                .extracting(Dependency::getArtifactId, Dependency::getVersion)
+                .containsExactly(
+                        tuple("multi-module-api", apiVersion),
+                        tuple("multi-module-service", serviceVersion));
+
+        assertThat(build.counters.getRepositoryOpens()).as("repository opens").isEqualTo(1);
+        assertThat(build.counters.getDiscoveryPomParses()).as("discovery pom parses").isEqualTo(3);
+    }
+
+    @Test
+    public void multiModuleProject_repositoryScopedVersion() throws Exception {
+        // GIVEN
+        File projectDir = BuildSimulation.copyFixture("maven_multi_module_project", tempFolder.newFolder());
+        writeConfiguration(projectDir, "${commit.short}");
+        RevCommit headCommit;
+        try (Git git = TestRepository.init(projectDir)) {
+            TestRepository.writeFile(projectDir, "multi-module-api/src/main/java/Api.java");
+            headCommit = TestRepository.commitAll(git, "api change");
+        }
+
+        // WHEN
+        BuildSimulation build = BuildSimulation.run(projectDir);
+
+        // THEN
+        Map<String, BuildSimulation.Project> projects = projectsByArtifactId(build);
+        String version = headCommit.getName().substring(0, 7);
+        assertThat(projects.get("multi-module").getVersion()).isEqualTo(version);
+        // modules without own version keep inheriting the parent version
+        assertThat(projects.get("multi-module-api").model.getVersion()).isNull();
+        assertThat(projects.get("multi-module-api").getVersion()).isEqualTo(version);
+        assertThat(projects.get("multi-module").model.getDependencyManagement().getDependencies())
+                .extracting(Dependency::getVersion)
+                .containsOnly("${project.version}");
+        assertThat(build.counters.getDiscoveryPomParses()).as("discovery pom parses").isEqualTo(0);
+    }
+
+    private static void writeConfiguration(File projectDir, String branchVersionFormat) throws Exception {
+        TestRepository.writeFile(projectDir, ".mvn/maven-git-versioning-extension.xml", "<configuration>\n"
+                + "    <branches><branch><pattern>.*</pattern><versionFormat>" + branchVersionFormat + "</versionFormat></branch></branches>\n"
+                + "</configuration>\n");
+    }
+
+    private static Map<String, BuildSimulation.Project> projectsByArtifactId(BuildSimulation build) {
+        return build.projects.stream()
+                .collect(Collectors.toMap(project -> project.model.getArtifactId(), Function.identity()));
+    }
+}
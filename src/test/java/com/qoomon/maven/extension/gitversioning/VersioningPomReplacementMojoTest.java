@@ -0,0 +1,94 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import com.qoomon.maven.ModelUtil;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VersioningPomReplacementMojoTest {
+
+    @Test
+    public void requiredBy_phases() {
+        assertThat(VersioningPomReplacementMojo.requiredBy(Arrays.asList("clean", "compile"))).isEmpty();
+        assertThat(VersioningPomReplacementMojo.requiredBy(Collections.singletonList("test"))).isEmpty();
+        assertThat(VersioningPomReplacementMojo.requiredBy(Collections.singletonList("site"))).isEmpty();
+        assertThat(VersioningPomReplacementMojo.requiredBy(Collections.singletonList("prepare-package"))).hasValue("prepare-package");
+        assertThat(VersioningPomReplacementMojo.requiredBy(Arrays.asList("clean", "install"))).hasValue("install");
+        assertThat(VersioningPomReplacementMojo.requiredBy(Collections.singletonList("deploy"))).hasValue("deploy");
+    }
+
+    @Test
+    public void requiredBy_pluginGoals() {
+        assertThat(VersioningPomReplacementMojo.requiredBy(Collections.singletonList("help:effective-pom"))).isEmpty();
+        assertThat(VersioningPomReplacementMojo.requiredBy(Collections.singletonList("org.apache.maven.plugins:maven-help-plugin:evaluate"))).isPresent();
+        assertThat(VersioningPomReplacementMojo.requiredBy(Arrays.asList("compile", "deploy:deploy"))).hasValue("deploy:deploy");
+    }
+
+    @Test
+    public void slimModel() throws Exception {
+        // GIVEN
+        Model model = ModelUtil.readModel(new File("src/test/resources/maven_multi_module_project/pom.xml"));
+        model.setVersion("1.0.0");
+        Dependency dependency = new Dependency();
+        dependency.setGroupId("test");
+        dependency.setArtifactId("dependency");
+        dependency.setVersion("2.0.0");
+        model.addDependency(dependency);
+
+        // WHEN
+        Model slimModel = VersioningPomReplacementMojo.slimModel(model);
+
+        // THEN
+        assertThat(slimModel.getGroupId()).isEqualTo("test");
+        assertThat(slimModel.getArtifactId()).isEqualTo("multi-module");
+        assertThat(slimModel.getVersion()).isEqualTo("1.0.0");
+        assertThat(slimModel.getPackaging()).isEqualTo("pom");
+        assertThat(slimModel.getProperties()).isEqualTo(model.getProperties());
+        assertThat(slimModel.getDependencyManagement().getDependencies()).hasSize(2);
+        assertThat(slimModel.getDependencies()).extracting(Dependency::getArtifactId).containsExactly("dependency");
+        assertThat(slimModel.getModules()).isEmpty();
+        assertThat(slimModel.getBuild()).isNull();
+        assertThat(slimModel.getProfiles()).isEmpty();
+    }
+
+    @Test
+    public void replacementModel_pomPackaging() throws Exception {
+        // GIVEN
+        Model parentModel = ModelUtil.readModel(new File("src/test/resources/maven_multi_module_project/pom.xml"));
+
+        // WHEN
+        Model replacementModel = VersioningPomReplacementMojo.replacementModel(parentModel, true);
+
+        // THEN
+        assertThat(replacementModel).isSameAs(parentModel);
+        assertThat(replacementModel.getBuild().getPlugins()).isNotEmpty();
+        assertThat(replacementModel.getProfiles()).isNotEmpty();
+    }
+
+    @Test
+    public void replacementModel_jarPackaging() throws Exception {
+        // GIVEN
+        Model model = ModelUtil.readModel(new File("src/test/resources/maven_multi_module_project/multi-module-service/pom.xml"));
+
+        // WHEN
+        Model slimReplacementModel = VersioningPomReplacementMojo.replacementModel(model, true);
+        Model fullReplacementModel = VersioningPomReplacementMojo.replacementModel(model, false);
+
+        // THEN
+        assertThat(slimReplacementModel).isNotSameAs(model);
+        assertThat(slimReplacementModel.getParent().getArtifactId()).isEqualTo("multi-module");
+        assertThat(slimReplacementModel.getDependencies()).extracting(Dependency::getArtifactId).containsExactly("multi-module-api", "guava");
+        assertThat(fullReplacementModel).isSameAs(model);
+    }
+
+    @Test
+    public void requiredBy_defaultGoal() {
+        assertThat(VersioningPomReplacementMojo.requiredBy(Collections.emptyList())).isPresent();
+    }
+}
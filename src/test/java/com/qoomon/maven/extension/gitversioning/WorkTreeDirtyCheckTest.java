@@ -0,0 +1,100 @@
+package com.qoomon.maven.extension.gitversioning;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WorkTreeDirtyCheckTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void isDirty_clean() throws Exception {
+        // GIVEN
+        File workTree = tempFolder.getRoot();
+        TestRepository.writeFile(workTree, "api/pom.xml", "api");
+        try (Git git = TestRepository.init(workTree)) {
+            TestRepository.writeFile(workTree, "untracked.txt", "untracked");
+
+            // WHEN
+            boolean dirty = WorkTreeDirtyCheck.isDirty(git.getRepository(), "");
+
+            // THEN
+            assertThat(dirty).isFalse();
+        }
+    }
+
+    @Test
+    public void isDirty_modified() throws Exception {
+        // GIVEN
+        File workTree = tempFolder.getRoot();
+        TestRepository.writeFile(workTree, "api/pom.xml", "api");
+        TestRepository.writeFile(workTree, "service/pom.xml", "service");
+        try (Git git = TestRepository.init(workTree)) {
+            TestRepository.writeFile(workTree, "api/pom.xml", "api modified");
+
+            // WHEN
+            boolean repositoryDirty = WorkTreeDirtyCheck.isDirty(git.getRepository(), "");
+            boolean apiDirty = WorkTreeDirtyCheck.isDirty(git.getRepository(), "api");
+            boolean serviceDirty = WorkTreeDirtyCheck.isDirty(git.getRepository(), "service");
+
+            // THEN
+            assertThat(repositoryDirty).isTrue();
+            assertThat(apiDirty).isTrue();
+            assertThat(serviceDirty).isFalse();
+        }
+    }
+
+    @Test
+    public void getDirtyModulePaths() throws Exception {
+        // GIVEN
+        File workTree = tempFolder.getRoot();
+        TestRepository.writeFile(workTree, "pom.xml", "root");
+        TestRepository.writeFile(workTree, "api/pom.xml", "api");
+        TestRepository.writeFile(workTree, "service/pom.xml", "service");
+        TestRepository.writeFile(workTree, "web/pom.xml", "web");
+        TestRepository.writeFile(workTree, "docs/index.md", "docs");
+        try (Git git = TestRepository.init(workTree)) {
+            TestRepository.writeFile(workTree, "api/pom.xml", "api modified");
+            Files.delete(new File(workTree, "service/pom.xml").toPath());
+            TestRepository.writeFile(workTree, "docs/index.md", "docs modified");
+            TestRepository.writeFile(workTree, "web/untracked.txt", "untracked");
+
+            // WHEN
+            Set<String> dirtyModulePaths = WorkTreeDirtyCheck.getDirtyModulePaths(git.getRepository(),
+                    new HashSet<>(Arrays.asList("api", "service", "web")));
+            Set<String> dirtyModulePathsWithRoot = WorkTreeDirtyCheck.getDirtyModulePaths(git.getRepository(),
+                    new HashSet<>(Arrays.asList("", "web")));
+
+            // THEN
+            assertThat(dirtyModulePaths).containsOnly("api", "service");
+            assertThat(dirtyModulePathsWithRoot).containsOnly("");
+        }
+    }
+
+    @Test
+    public void isDirty_deleted() throws Exception {
+        // GIVEN
+        File workTree = tempFolder.getRoot();
+        TestRepository.writeFile(workTree, "api/pom.xml", "api");
+        try (Git git = TestRepository.init(workTree)) {
+            Files.delete(new File(workTree, "api/pom.xml").toPath());
+
+            // WHEN
+            boolean dirty = WorkTreeDirtyCheck.isDirty(git.getRepository(), "");
+
+            // THEN
+            assertThat(dirty).isTrue();
+        }
+    }
+}
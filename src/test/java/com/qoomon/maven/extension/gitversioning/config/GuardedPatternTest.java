@@ -0,0 +1,115 @@
+package com.qoomon.maven.extension.gitversioning.config;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GuardedPatternTest {
+
+    @Test
+    public void linear() {
+        // WHEN
+        GuardedPattern pattern = GuardedPattern.compile("release/.*", 100);
+
+        // THEN
+        assertThat(pattern.isLinear()).isTrue();
+        assertThat(pattern.matches("release/1.0")).isTrue();
+        assertThat(pattern.matches("feature/release/1.0")).isFalse();
+        assertThat(GuardedPattern.compile("release/", 100).removeFirst("release/1.0")).isEqualTo("1.0");
+    }
+
+    @Test
+    public void linear_catastrophicPattern() {
+        // GIVEN
+        GuardedPattern pattern = GuardedPattern.compile("(a+)+b", 100);
+
+        // WHEN
+        boolean matches = pattern.matches("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
+
+        // THEN
+        assertThat(pattern.isLinear()).isTrue();
+        assertThat(matches).isFalse();
+    }
+
+    @Test
+    public void linear_sameResultsAsJavaRegex() {
+        // GIVEN
+        List<String> regexes = Arrays.asList("release/.*", "master", "v\\d+\\.\\d+(\\.\\d+)?", "feature/[a-z0-9-]+",
+                "(release|hotfix)/.*?", "[^/]+", "version/", "x{2,3}", "\\w+-rc\\d*", "^v.*$", "(?:a|b)+c", "[\\w.]+");
+        List<String> inputs = Arrays.asList("", ":", "master", "release/1.0", "hotfix/x", "feature/abc-1", "feature/ABC",
+                "version/1.0.0", "v1.2", "v1.2.3", "xx", "xxxx", "abc-rc1", "abac", "\u00e4\u00f6\u00fc", "a.b_c");
+
+        for (String regex : regexes) {
+            // WHEN
+            GuardedPattern pattern = GuardedPattern.compile(regex, 100);
+
+            // THEN
+            assertThat(pattern.isLinear()).as(regex).isTrue();
+            for (String input : inputs) {
+                assertThat(pattern.matches(input)).as(regex + " matches '" + input + "'").isEqualTo(input.matches(regex));
+                assertThat(pattern.removeFirst(input)).as(regex + " removeFirst '" + input + "'").isEqualTo(input.replaceFirst(regex, ""));
+            }
+        }
+    }
+
+    @Test
+    public void linear_unvettedConstructs() {
+        for (String regex : Arrays.asList("[[:alpha:]]+", "\\p{Alpha}+", "[a-z&&[^e]]+", "[a[b]]", "(?i)release", "\\s+", "\\bv",
+                "\\Qa.b\\E", "(?<name>v)", "a*+b", "(a)\\1", "\\x41")) {
+            // WHEN
+            GuardedPattern pattern = GuardedPattern.compile(regex, 1000);
+
+            // THEN
+            assertThat(pattern.isLinear()).as(regex).isFalse();
+        }
+
+        // java.util.regex semantics, RE2 would treat it as POSIX class
+        GuardedPattern posixLike = GuardedPattern.compile("[[:alpha:]]+", 1000);
+        assertThat(posixLike.matches(":")).isTrue();
+        assertThat(posixLike.matches("abc")).isFalse();
+    }
+
+    @Test
+    public void linear_lineTerminatorInput() {
+        // GIVEN
+        GuardedPattern pattern = GuardedPattern.compile("v.*", 100);
+
+        // WHEN / THEN
+        assertThat(pattern.isLinear()).isTrue();
+        assertThat(pattern.matches("v1\r")).isEqualTo("v1\r".matches("v.*"));
+        assertThat(pattern.matches("v1\u2028")).isEqualTo("v1\u2028".matches("v.*"));
+    }
+
+    @Test
+    public void backtracking() {
+        // WHEN
+        GuardedPattern pattern = GuardedPattern.compile("v.*(?<!-rc)", 1000);
+
+        // THEN
+        assertThat(pattern.isLinear()).isFalse();
+        assertThat(pattern.matches("v1.0")).isTrue();
+        assertThat(pattern.matches("v1.0-rc")).isFalse();
+    }
+
+    @Test
+    public void backtracking_stepLimitExceeded() {
+        // GIVEN
+        GuardedPattern pattern = GuardedPattern.compile("(a+)+\\1b", 10_000);
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> pattern.matches("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("exceeded match step limit of 10000");
+    }
+
+    @Test
+    public void invalid() {
+        assertThatThrownBy(() -> GuardedPattern.compile("release/(", 100))
+                .isInstanceOf(PatternSyntaxException.class);
+    }
+}
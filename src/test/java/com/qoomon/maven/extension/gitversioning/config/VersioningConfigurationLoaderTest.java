@@ -0,0 +1,143 @@
+package com.qoomon.maven.extension.gitversioning.config;
+
+import com.qoomon.maven.extension.gitversioning.config.model.VersionFormatDescription;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class VersioningConfigurationLoaderTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void load() throws Exception {
+        // GIVEN
+        File configFile = new File("src/test/resources/maven_multi_module_project/.mvn/maven-git-versioning-extension.xml");
+
+        // WHEN
+        VersioningConfiguration configuration = VersioningConfigurationLoader.load(configFile);
+
+        // THEN
+        assertThat(configuration.getBranchVersionDescriptions()).hasSize(3);
+        VersionFormatDescription releaseBranch = configuration.getBranchVersionDescriptions().get(1);
+        assertThat(releaseBranch.pattern).isEqualTo("release/.*");
+        assertThat(releaseBranch.prefix).isEqualTo("release/");
+        assertThat(releaseBranch.versionFormat).isEqualTo("${branch}-SNAPSHOT");
+        VersionFormatDescription defaultBranch = configuration.getBranchVersionDescriptions().get(2);
+        assertThat(defaultBranch.pattern).isEqualTo(".*");
+
+        assertThat(configuration.getTagVersionDescriptions()).hasSize(1);
+        assertThat(configuration.getTagVersionDescriptions().get(0).versionFormat).isEqualTo("${tag}");
+        assertThat(configuration.getDirtyScope()).isEqualTo(VersioningConfiguration.DirtyScope.REPOSITORY);
+    }
+
+    @Test
+    public void load_missingFile() throws Exception {
+        // WHEN
+        VersioningConfiguration configuration = VersioningConfigurationLoader.load(new File(tempFolder.getRoot(), "missing.xml"));
+
+        // THEN
+        assertThat(configuration.getBranchVersionDescriptions()).hasSize(1);
+        assertThat(configuration.getTagVersionDescriptions()).isEmpty();
+    }
+
+    @Test
+    public void load_unknownElement() throws Exception {
+        // GIVEN
+        File configFile = tempFolder.newFile("config.xml");
+        Files.write(configFile.toPath(), "<configuration><unknown/></configuration>".getBytes(StandardCharsets.UTF_8));
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> VersioningConfigurationLoader.load(configFile))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Unexpected element 'unknown'");
+    }
+
+    @Test
+    public void load_invalidPattern() throws Exception {
+        // GIVEN
+        File configFile = tempFolder.newFile("config.xml");
+        Files.write(configFile.toPath(), ("<configuration><branches><branch>"
+                + "<pattern>release/(</pattern><versionFormat>${branch}</versionFormat>"
+                + "</branch></branches></configuration>").getBytes(StandardCharsets.UTF_8));
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> VersioningConfigurationLoader.load(configFile))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid pattern 'release/('");
+    }
+
+    @Test
+    public void load_storage() throws Exception {
+        // GIVEN
+        File configFile = tempFolder.newFile("config.xml");
+        Files.write(configFile.toPath(), ("<configuration><storage>"
+                + "<packedGitWindowSize>16k</packedGitWindowSize>"
+                + "<packedGitLimit>64m</packedGitLimit>"
+                + "<packedGitMMAP>true</packedGitMMAP>"
+                + "<deltaBaseCacheLimit>20m</deltaBaseCacheLimit>"
+                + "</storage></configuration>").getBytes(StandardCharsets.UTF_8));
+
+        // WHEN
+        VersioningConfiguration configuration = VersioningConfigurationLoader.load(configFile);
+
+        // THEN
+        assertThat(configuration.getWindowCacheConfig()).isPresent();
+        WindowCacheConfig windowCacheConfig = configuration.getWindowCacheConfig().get();
+        assertThat(windowCacheConfig.getPackedGitWindowSize()).isEqualTo(16 * 1024);
+        assertThat(windowCacheConfig.getPackedGitLimit()).isEqualTo(64 * 1024 * 1024);
+        assertThat(windowCacheConfig.isPackedGitMMAP()).isTrue();
+        assertThat(windowCacheConfig.getDeltaBaseCacheLimit()).isEqualTo(20 * 1024 * 1024);
+        assertThat(windowCacheConfig.getPackedGitOpenFiles()).isEqualTo(new WindowCacheConfig().getPackedGitOpenFiles());
+    }
+
+    @Test
+    public void load_withoutStorage() throws Exception {
+        // GIVEN
+        File configFile = new File("src/test/resources/maven_multi_module_project/.mvn/maven-git-versioning-extension.xml");
+
+        // WHEN
+        VersioningConfiguration configuration = VersioningConfigurationLoader.load(configFile);
+
+        // THEN
+        assertThat(configuration.getWindowCacheConfig()).isEmpty();
+        assertThat(configuration.isSlimPom()).isFalse();
+    }
+
+    @Test
+    public void load_slimPom() throws Exception {
+        // GIVEN
+        File configFile = tempFolder.newFile("config.xml");
+        Files.write(configFile.toPath(), "<configuration><slimPom>true</slimPom></configuration>".getBytes(StandardCharsets.UTF_8));
+
+        // WHEN
+        VersioningConfiguration configuration = VersioningConfigurationLoader.load(configFile);
+
+        // THEN
+        assertThat(configuration.isSlimPom()).isTrue();
+    }
+
+    @Test
+    public void load_invalidStorageWindowSize() throws Exception {
+        // GIVEN
+        File configFile = tempFolder.newFile("config.xml");
+        Files.write(configFile.toPath(), ("<configuration><storage>"
+                + "<packedGitWindowSize>10k</packedGitWindowSize>"
+                + "</storage></configuration>").getBytes(StandardCharsets.UTF_8));
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> VersioningConfigurationLoader.load(configFile))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid storage packedGitWindowSize '10k'");
+    }
+}